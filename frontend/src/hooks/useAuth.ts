@@ -1,5 +1,6 @@
 import { useState, useEffect, useCallback } from 'react';
 import { authStorage } from '../utils/auth';
+import { authAPI } from '../services/api';
 
 interface AuthState {
   token: string | null;
@@ -27,6 +28,8 @@ export const useAuth = () => {
   }, []);
 
   const clearAuth = useCallback(() => {
+    // The refresh token is revoked in the background, the local session ends right away
+    authAPI.logout().catch(() => undefined);
     authStorage.clearAuth();
     setAuthState({
       token: null,
@@ -1,6 +1,7 @@
 ﻿import axios from "axios";
 import { Team, Player, Transfer } from '../types';
 import { API_BASE_URL } from '../constants';
+import { authStorage } from '../utils/auth';
 
 export interface LoginRequest {
   email: string;
@@ -34,6 +35,8 @@ export interface AuthResponse {
   userId: string;
   teamId: string;
   token: string;
+  expiresIn: number;
+  refreshToken: string;
 }
 
 const api = axios.create({
@@ -48,9 +51,39 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
+// Concurrent requests answered 401 wait for the same refresh, a refresh token only works once
+let refreshing: Promise<string> | null = null;
+
+const refreshAccessToken = (refreshToken: string): Promise<string> => {
+  if (!refreshing) {
+    refreshing = axios
+      .post<AuthResponse>(`${API_BASE_URL}/auth/refresh`, { refreshToken })
+      .then((response) => {
+        authStorage.setTokens(response.data.token, response.data.refreshToken);
+        return response.data.token;
+      })
+      .finally(() => {
+        refreshing = null;
+      });
+  }
+  return refreshing;
+};
+
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
+    const request = error.config;
+    const refreshToken = authStorage.getRefreshToken();
+    if (error.response?.status === 401 && refreshToken && request && !request._retried) {
+      request._retried = true;
+      try {
+        const token = await refreshAccessToken(refreshToken);
+        request.headers.Authorization = `Bearer ${token}`;
+        return api(request);
+      } catch (refreshError) {
+        authStorage.clearAuth();
+      }
+    }
     console.error("API Error:", error.response?.data || error.message);
     return Promise.reject(error);
   }
@@ -59,6 +92,7 @@ api.interceptors.response.use(
 export const authAPI = {
   login: async (credentials: LoginRequest): Promise<AuthResponse> => {
     const response = await api.post("/auth/token", credentials);
+    authStorage.setTokens(response.data.token, response.data.refreshToken);
     return response.data;
   },
   
@@ -71,8 +105,16 @@ export const authAPI = {
       email: userData.email,
       password: userData.password
     });
+    authStorage.setTokens(response.data.token, response.data.refreshToken);
     return response.data;
   },
+
+  logout: async (): Promise<void> => {
+    const refreshToken = authStorage.getRefreshToken();
+    if (refreshToken) {
+      await api.post("/auth/revoke", { refreshToken });
+    }
+  },
 };
 
 export const userAPI = {
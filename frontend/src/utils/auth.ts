@@ -2,6 +2,12 @@ export const authStorage = {
   getToken: (): string | null => localStorage.getItem("token"),
   getTeamId: (): string | null => localStorage.getItem("teamId"),
   getUserId: (): string | null => localStorage.getItem("userId"),
+  getRefreshToken: (): string | null => localStorage.getItem("refreshToken"),
+
+  setTokens: (token: string, refreshToken: string): void => {
+    localStorage.setItem("token", token);
+    localStorage.setItem("refreshToken", refreshToken);
+  },
   
   setAuth: (token: string, teamId: string, userId?: string): void => {
     localStorage.setItem("token", token);
@@ -13,6 +19,7 @@ export const authStorage = {
   
   clearAuth: (): void => {
     localStorage.removeItem("token");
+    localStorage.removeItem("refreshToken");
     localStorage.removeItem("teamId");
     localStorage.removeItem("userId");
   }
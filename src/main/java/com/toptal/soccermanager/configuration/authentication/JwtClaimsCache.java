@@ -0,0 +1,74 @@
+package com.toptal.soccermanager.configuration.authentication;
+
+import com.toptal.soccermanager.utils.TokenDigest;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the claims of already verified tokens, so a token pays for its signature check only once.
+ * Entries are keyed by the SHA-256 digest of the token and dropped when the token expires.
+ */
+
+@Component
+public class JwtClaimsCache {
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, CachedClaims> cache = new ConcurrentHashMap<>();
+
+    public Claims get(String token) {
+        String key = TokenDigest.sha256(token);
+        CachedClaims cached = cache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            cache.remove(key, cached);
+            return null;
+        }
+        return cached.claims;
+    }
+
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return;
+        }
+        if (cache.size() >= maxSize) {
+            evictExpired();
+            if (cache.size() >= maxSize) {
+                // Still full of live tokens, the token is simply verified again next time
+                return;
+            }
+        }
+        cache.put(TokenDigest.sha256(token), new CachedClaims(claims, expiration.getTime()));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.entrySet().removeIf(e -> e.getValue().isExpired(now));
+    }
+
+    private static class CachedClaims {
+        private final Claims claims;
+        private final long expiresAt;
+
+        CachedClaims(Claims claims, long expiresAt) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
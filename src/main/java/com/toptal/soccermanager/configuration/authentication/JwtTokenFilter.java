@@ -5,6 +5,8 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureException;
 import io.jsonwebtoken.UnsupportedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,7 +18,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
 
 public class JwtTokenFilter extends OncePerRequestFilter {
     private final String HEADER = "Authorization";
@@ -25,6 +26,9 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -53,17 +57,18 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             filterChain.doFilter(request, response);
             return;
         }
-        // Get jwt token and validate
+        // Get jwt token, validate it and get the user in a single parse
+        Timer.Sample sample = Timer.start(meterRegistry);
         String jwt = request.getHeader(HEADER).replace(PREFIX, "");
-        if (!jwtUtils.validateToken(jwt)) {
+        UserInfo user = jwtUtils.getUserFromJwtToken(jwt);
+        boolean authenticated = user != null && user.isEnabled();
+        sample.stop(meterRegistry.timer("soccermanager.jwt.filter", "authenticated", String.valueOf(authenticated)));
+        if (!authenticated) {
             filterChain.doFilter(request, response);
             return;
         }
-        // Get user and set it on spring security context
-        UserInfo user = jwtUtils.getUserFromJwtToken(jwt);
-
-        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, null,
-                user == null ? List.of() : user.getAuthorities());
+        // Set the user on spring security context
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
         auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
         SecurityContextHolder.getContext().setAuthentication(auth);
@@ -1,17 +1,33 @@
 package com.toptal.soccermanager.configuration.authentication;
 
 import com.toptal.soccermanager.model.dto.UserDto;
-import com.toptal.soccermanager.model.entity.User;
+import com.toptal.soccermanager.model.entity.Role;
+import com.toptal.soccermanager.model.entity.Status;
 import com.toptal.soccermanager.repository.UserRepository;
 import com.toptal.soccermanager.utils.UserInfo;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Issues and verifies the access tokens. The keys are decoded and the parser configured once at startup,
+ * a configured parser is only read while parsing and is shared by all requests.
+ * New tokens are signed with jwt.secret and name it in their kid header. Tokens naming one of jwt.previous-keys
+ * still verify, so a new secret can be rolled out while the tokens signed with the former one expire.
+ */
 
 @Component
 @Slf4j
@@ -19,50 +35,141 @@ public class JwtUtils {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    @Value("${jwt.key-id:1}")
+    private String keyId;
+
+    // key-id:secret entries, comma separated
+    @Value("${jwt.previous-keys:}")
+    private String[] previousKeys;
+
     @Value("${jwt.expiration}")
     private int jwtExpirationInSeconds;
 
+    @Value("${jwt.principal-claims:true}")
+    private boolean principalFromClaims;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JwtClaimsCache claimsCache;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SecretKey signingKey;
+    private Map<String, SecretKey> verificationKeys;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void createKeys() {
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String previousKey : previousKeys) {
+            int separator = previousKey.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalStateException("jwt.previous-keys entries must be key-id:secret");
+            }
+            keys.put(previousKey.substring(0, separator).trim(), hmacKey(previousKey.substring(separator + 1).trim()));
+        }
+        signingKey = hmacKey(jwtSecret);
+        keys.put(keyId, signingKey);
+        verificationKeys = Map.copyOf(keys);
+
+        parser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                // Tokens issued before key ids were introduced are signed with the current secret
+                if (header.getKeyId() == null) {
+                    return signingKey;
+                }
+                SecretKey key = verificationKeys.get(header.getKeyId());
+                if (key == null) {
+                    throw new SignatureException("Unknown key id " + header.getKeyId());
+                }
+                return key;
+            }
+        });
+    }
+
     public String getJwtToken(UserDto user) {
         Date now = new Date();
         Date exp = new Date(System.currentTimeMillis() + (1000L * jwtExpirationInSeconds));
 
         String jwt = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyId)
                 .setSubject(user.getEmail())
                 .claim("id", user.getId())
+                .claim("role", user.getRole())
+                .claim("status", user.getStatus())
                 .setIssuedAt(now)
                 .setExpiration(exp)
-                .signWith(
-                        SignatureAlgorithm.HS512,
-                        TextCodec.BASE64.decode(jwtSecret)
-                )
+                .signWith(SignatureAlgorithm.HS512, signingKey)
                 .compact();
         return jwt;
     }
 
     public UserInfo getUserFromJwtToken(String token) {
-        Claims claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody();
+        Claims claims = getClaimsFromJwtToken(token);
+        if (claims == null) {
+            return null;
+        }
 
         long id = claims.get("id", Long.class);
-        User user = userRepository.findById(id)
-                .orElse(null);
+        UserInfo user = principalCache.get(id);
+        if (user != null) {
+            return user;
+        }
 
-        if (user == null) {
-            return null;
+        if (principalFromClaims && hasPrincipalClaims(claims) && principalCache.isTrusted(id, claims.getIssuedAt())) {
+            user = new UserInfo(id, claims.getSubject(), Role.valueOf(claims.get("role", String.class)),
+                    Status.valueOf(claims.get("status", String.class)));
+        } else {
+            user = userRepository.findByIdWithTeam(id)
+                    .map(UserInfo::new)
+                    .orElse(null);
         }
-        return new UserInfo(user);
+
+        if (user != null) {
+            principalCache.put(user);
+        }
+        return user;
     }
 
     public boolean validateToken(String token) {
+        return getClaimsFromJwtToken(token) != null;
+    }
+
+    // Parses and verifies the token once, later calls with the same token are served from the cache
+    public Claims getClaimsFromJwtToken(String token) {
+        Claims claims = claimsCache.get(token);
+        if (claims != null) {
+            meterRegistry.counter("soccermanager.jwt.claims.cache", "result", "hit").increment();
+            return claims;
+        }
+        meterRegistry.counter("soccermanager.jwt.claims.cache", "result", "miss").increment();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException | UnsupportedJwtException | MalformedJwtException
                  | SignatureException | IllegalArgumentException ex) {
-            log.error("Token validation error" + ex.getMessage());
+            sample.stop(meterRegistry.timer("soccermanager.jwt.parse", "valid", "false"));
+            log.warn("Token validation error: {}", ex.getMessage());
+            return null;
         }
-        return false;
+        sample.stop(meterRegistry.timer("soccermanager.jwt.parse", "valid", "true"));
+        claimsCache.put(token, claims);
+        return claims;
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+    }
+
+    private boolean hasPrincipalClaims(Claims claims) {
+        return claims.containsKey("role") && claims.containsKey("status");
     }
 }
@@ -0,0 +1,191 @@
+package com.toptal.soccermanager.configuration.authentication;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory count of the login attempts per email and per client address over windows of login.throttle.window seconds.
+ * A login takes an attempt before any query or password check and is refused with LOGIN_THROTTLED over the limit,
+ * so a burst against one account or from one address costs neither. A successful login gives its attempts back.
+ * Counters are only updated with compare-and-set and kept in stripes, each bounded to its share of login.throttle.max-keys.
+ * A key without room in its stripe is not counted. Kept per instance, like PrincipalCache.
+ */
+
+@Component
+public class LoginThrottle {
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long NOT_COUNTED = 0;
+    private static final long OVER_LIMIT = -1;
+
+    @Value("${login.throttle.window:900}")
+    private int windowInSeconds;
+
+    @Value("${login.throttle.address-max-attempts:20}")
+    private int maxAddressAttempts;
+
+    @Value("${login.throttle.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${login.throttle.stripes:16}")
+    private int stripes;
+
+    private AttemptCounter emails;
+    private AttemptCounter addresses;
+
+    @PostConstruct
+    public void createCounters() {
+        emails = new AttemptCounter(stripes, maxKeys / stripes, windowInSeconds);
+        addresses = new AttemptCounter(stripes, maxKeys / stripes, windowInSeconds);
+    }
+
+    // Takes an attempt for the email and the client address, if any
+    public Attempt acquire(String email, String address, int maxEmailAttempts) throws ApplicationException {
+        long now = System.currentTimeMillis() / 1000;
+        long addressState = address != null ? addresses.acquire(address, maxAddressAttempts, now) : NOT_COUNTED;
+        if (addressState == OVER_LIMIT) {
+            throw new ApplicationException(ApplicationError.LOGIN_THROTTLED);
+        }
+        long emailState = emails.acquire(email, maxEmailAttempts, now);
+        if (emailState == OVER_LIMIT) {
+            addresses.release(address, addressState);
+            throw new ApplicationException(ApplicationError.LOGIN_THROTTLED);
+        }
+        return new Attempt(email, emailState, address, addressState);
+    }
+
+    // Forgets the attempts of an email, once an administrator let its user in again
+    public void reset(String email) {
+        emails.remove(email);
+    }
+
+    public class Attempt {
+        private final String email;
+        private final long emailState;
+        private final String address;
+        private final long addressState;
+
+        Attempt(String email, long emailState, String address, long addressState) {
+            this.email = email;
+            this.emailState = emailState;
+            this.address = address;
+            this.addressState = addressState;
+        }
+
+        // Rank of this attempt among those of the email in the current window, 0 if it was not counted
+        public int getEmailAttempts() {
+            return (int) (emailState & COUNT_MASK);
+        }
+
+        // The password was right, the attempts of the email start over and the address gets this one back
+        public void succeeded() {
+            emails.clear(email, emailState);
+            addresses.release(address, addressState);
+        }
+
+        // The login was not tried at all
+        public void cancelled() {
+            emails.release(email, emailState);
+            addresses.release(address, addressState);
+        }
+    }
+
+    // A counter is the start of its window in seconds and the attempts since, packed into one long
+    private static class AttemptCounter {
+        private final List<Map<String, AtomicLong>> stripes;
+        private final int maxKeysPerStripe;
+        private final long windowInSeconds;
+
+        AttemptCounter(int stripes, int maxKeysPerStripe, long windowInSeconds) {
+            this.stripes = new ArrayList<>(stripes);
+            for (int i = 0; i < stripes; i++) {
+                this.stripes.add(new ConcurrentHashMap<>());
+            }
+            this.maxKeysPerStripe = maxKeysPerStripe;
+            this.windowInSeconds = windowInSeconds;
+        }
+
+        long acquire(String key, int max, long now) {
+            Map<String, AtomicLong> stripe = stripe(key);
+            AtomicLong counter = stripe.get(key);
+            if (counter == null) {
+                if (stripe.size() >= maxKeysPerStripe) {
+                    stripe.values().removeIf(c -> isExpired(c.get(), now));
+                    if (stripe.size() >= maxKeysPerStripe) {
+                        return NOT_COUNTED;
+                    }
+                }
+                counter = stripe.computeIfAbsent(key, k -> new AtomicLong());
+            }
+            while (true) {
+                long state = counter.get();
+                long next;
+                if (isExpired(state, now)) {
+                    next = (now << COUNT_BITS) + 1;
+                } else if ((state & COUNT_MASK) >= max) {
+                    return OVER_LIMIT;
+                } else {
+                    next = state + 1;
+                }
+                if (counter.compareAndSet(state, next)) {
+                    return next;
+                }
+            }
+        }
+
+        // Gives an attempt back, unless its window is over
+        void release(String key, long acquired) {
+            AtomicLong counter = counter(key, acquired);
+            if (counter == null) {
+                return;
+            }
+            while (true) {
+                long state = counter.get();
+                if (state >>> COUNT_BITS != acquired >>> COUNT_BITS || (state & COUNT_MASK) == 0) {
+                    return;
+                }
+                if (counter.compareAndSet(state, state - 1)) {
+                    return;
+                }
+            }
+        }
+
+        // Drops all attempts of the window of the acquired one
+        void clear(String key, long acquired) {
+            AtomicLong counter = counter(key, acquired);
+            if (counter == null) {
+                return;
+            }
+            long state = counter.get();
+            while (state >>> COUNT_BITS == acquired >>> COUNT_BITS && (state & COUNT_MASK) != 0
+                    && !counter.compareAndSet(state, state & ~COUNT_MASK)) {
+                state = counter.get();
+            }
+        }
+
+        void remove(String key) {
+            stripe(key).remove(key);
+        }
+
+        private AtomicLong counter(String key, long acquired) {
+            return key != null && acquired > 0 ? stripe(key).get(key) : null;
+        }
+
+        private Map<String, AtomicLong> stripe(String key) {
+            return stripes.get((key.hashCode() & Integer.MAX_VALUE) % stripes.size());
+        }
+
+        private boolean isExpired(long state, long now) {
+            return state == 0 || now - (state >>> COUNT_BITS) >= windowInSeconds;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.toptal.soccermanager.configuration.authentication;
+
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Matches the requests received on the management server, once it runs on its own port.
+ * The port is taken from the started server, so a random management port matches too.
+ */
+
+public class ManagementPortRequestMatcher implements RequestMatcher, ApplicationListener<WebServerInitializedEvent> {
+    private static final String MANAGEMENT_NAMESPACE = "management";
+
+    private volatile int managementPort = -1;
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return request.getLocalPort() == managementPort;
+    }
+
+    // The management context publishes its event to the main context too
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        if (MANAGEMENT_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            managementPort = event.getWebServer().getPort();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.toptal.soccermanager.configuration.authentication;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Checks login passwords on a small pool of its own. A check costs about 100 ms of CPU, running it on the
+ * request thread inside the login transaction kept a database connection busy for as long, so a burst of logins
+ * starved every other endpoint. The queue is bounded: once full, logins are refused with LOGIN_UNAVAILABLE.
+ * A matching password whose hash is outdated is hashed again on the same pool, see SecurityConfiguration.
+ * The passwords of a bulk signup are hashed there too, so they share its cores and its queue with the logins.
+ * Queue depth and pool usage are exported as the executor.* metrics tagged name=login.
+ */
+
+@Component
+public class PasswordChecker {
+    @Value("${login.password-check.threads:0}")
+    private int threads;
+
+    @Value("${login.password-check.queue:100}")
+    private int queueCapacity;
+
+    @Value("${login.password-check.encode-timeout:30000}")
+    private long encodeTimeoutInMillis;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor pool;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void startPool() {
+        // The checks are CPU bound, by default there is a thread per core
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-check-"), new ThreadPoolExecutor.AbortPolicy());
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "login");
+    }
+
+    @PreDestroy
+    public void stopPool() {
+        pool.shutdownNow();
+    }
+
+    public CompletableFuture<PasswordCheck> check(String rawPassword, String encodedPassword) throws ApplicationException {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                if (!passwordEncoder.matches(rawPassword, encodedPassword)) {
+                    return new PasswordCheck(false, null);
+                }
+                // Hashed again while the password is at hand, when the stored hash is weaker than new ones
+                String upgradedPassword = passwordEncoder.upgradeEncoding(encodedPassword) ? passwordEncoder.encode(rawPassword) : null;
+                return new PasswordCheck(true, upgradedPassword);
+            }, executor);
+        } catch (RejectedExecutionException ex) {
+            throw new ApplicationException(ApplicationError.LOGIN_UNAVAILABLE, null, ex);
+        }
+    }
+
+    // Hashes in the order of the passwords. Refused with SIGNUP_UNAVAILABLE when they don't fit in the queue
+    // or take longer than login.password-check.encode-timeout, the hashes not started yet are then skipped
+    public List<String> encodeAll(List<String> rawPasswords) throws ApplicationException {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (String rawPassword : rawPasswords) {
+                hashes.add(CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), executor));
+            }
+            CompletableFuture.allOf(hashes.toArray(new CompletableFuture[0])).get(encodeTimeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | TimeoutException ex) {
+            hashes.forEach(hash -> hash.cancel(false));
+            throw new ApplicationException(ApplicationError.SIGNUP_UNAVAILABLE, null, ex);
+        } catch (InterruptedException ex) {
+            hashes.forEach(hash -> hash.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new ApplicationException(ApplicationError.SIGNUP_UNAVAILABLE, null, ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+        return hashes.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class PasswordCheck {
+        private final boolean matches;
+        // New hash of the password to store in place of the checked one, null if it is fine as it is
+        private final String upgradedPassword;
+    }
+}
@@ -0,0 +1,106 @@
+package com.toptal.soccermanager.configuration.authentication;
+
+import com.toptal.soccermanager.utils.UserInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived in-process cache of authenticated principals, keyed by user id.
+ * UserService invalidates a user when his role or status changes or when he is deleted,
+ * tokens issued before that moment are then resolved against the database again.
+ * On other instances a principal is never trusted for longer than the ttl.
+ */
+
+@Component
+public class PrincipalCache {
+    @Value("${jwt.principal-cache.ttl:60}")
+    private int ttlInSeconds;
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${jwt.expiration}")
+    private int jwtExpirationInSeconds;
+
+    private final Map<Long, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    private final Map<Long, Long> invalidations = new ConcurrentHashMap<>();
+
+    public UserInfo get(long id) {
+        CachedPrincipal cached = principals.get(id);
+        if (cached == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - cached.loadedAt >= 1000L * ttlInSeconds || isInvalidatedSince(id, cached.loadedAt)) {
+            principals.remove(id, cached);
+            return null;
+        }
+        return cached.principal;
+    }
+
+    public void put(UserInfo principal) {
+        if (principals.size() >= maxSize) {
+            long now = System.currentTimeMillis();
+            principals.values().removeIf(c -> now - c.loadedAt >= 1000L * ttlInSeconds);
+            if (principals.size() >= maxSize) {
+                return;
+            }
+        }
+        principals.put(principal.getId(), new CachedPrincipal(principal, System.currentTimeMillis()));
+    }
+
+    public void invalidate(long id) {
+        evict(id);
+        // Evict again once the change is visible, a concurrent lookup may have cached the old row meanwhile
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    private void evict(long id) {
+        long now = System.currentTimeMillis();
+        invalidations.put(id, now);
+        principals.remove(id);
+        // Tokens issued before the expiration window are rejected anyway
+        invalidations.values().removeIf(at -> now - at > 1000L * jwtExpirationInSeconds);
+    }
+
+    // Whether the claims of a token issued at the given time can still describe the user
+    public boolean isTrusted(long id, Date issuedAt) {
+        if (issuedAt == null) {
+            return false;
+        }
+        long issuedAtMillis = issuedAt.getTime();
+        if (System.currentTimeMillis() - issuedAtMillis >= 1000L * ttlInSeconds) {
+            return false;
+        }
+        // Token issue time has a granularity of seconds, a token issued in the same second is not trusted
+        return !isInvalidatedSince(id, issuedAtMillis);
+    }
+
+    private boolean isInvalidatedSince(long id, long since) {
+        Long invalidatedAt = invalidations.get(id);
+        return invalidatedAt != null && invalidatedAt >= since;
+    }
+
+    private static class CachedPrincipal {
+        private final UserInfo principal;
+        private final long loadedAt;
+
+        CachedPrincipal(UserInfo principal, long loadedAt) {
+            this.principal = principal;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.toptal.soccermanager.configuration.authentication;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,6 +11,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.core.GrantedAuthorityDefaults;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -17,13 +19,20 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class SecurityConfiguration {
+    private static final String BCRYPT = "bcrypt";
+
     @Autowired
     private AuthenticationExceptionHandler authenticationExceptionHandler;
 
+    @Value("${password.bcrypt.strength:10}")
+    private int bcryptStrength;
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration config = new CorsConfiguration();
@@ -44,8 +53,12 @@ public class SecurityConfiguration {
             .exceptionHandling().authenticationEntryPoint(authenticationExceptionHandler).and()
             .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
             .authorizeRequests()
-                .antMatchers("/auth/token").permitAll()
+                .antMatchers("/auth/token", "/auth/refresh", "/auth/revoke").permitAll()
                 .antMatchers(HttpMethod.POST, "/users").permitAll()
+                .antMatchers("/actuator/health").permitAll()
+                // The other endpoints are only reachable on the management port, bound to an internal address
+                .requestMatchers(managementPortRequestMatcher()).permitAll()
+                .antMatchers("/actuator/**").denyAll()
                 .anyRequest().authenticated()
             .and()
             .addFilterBefore(jwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
@@ -58,9 +71,23 @@ public class SecurityConfiguration {
         return new JwtTokenFilter();
     }
 
+    @Bean
+    public ManagementPortRequestMatcher managementPortRequestMatcher() {
+        return new ManagementPortRequestMatcher();
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return delegatingPasswordEncoder(bcryptStrength);
+    }
+
+    // New hashes are prefixed with {bcrypt}, hashes stored before without prefix are bcrypt too.
+    // A hash of another encoder or a lower strength is upgraded at the next successful login
+    public static PasswordEncoder delegatingPasswordEncoder(int bcryptStrength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
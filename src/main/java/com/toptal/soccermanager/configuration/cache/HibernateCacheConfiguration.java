@@ -0,0 +1,80 @@
+package com.toptal.soccermanager.configuration.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regions of the Hibernate second-level cache, held in process by Caffeine behind JCache.
+ * Every region is created here with its bound, Hibernate fails to start on a region missing from this list.
+ * The cache is not shared between instances, entries expire after l2-cache.ttl so changes made
+ * by another instance show up after it.
+ */
+
+@Configuration
+public class HibernateCacheConfiguration {
+    private static final String TEAM_REGION = "team";
+    private static final String TEAM_PLAYERS_REGION = "team.players";
+    private static final String PLAYER_REGION = "player";
+    private static final String TRANSFER_REGION = "transfer";
+
+    @Value("${l2-cache.team.max-size:10000}")
+    private long teamMaxSize;
+
+    @Value("${l2-cache.player.max-size:200000}")
+    private long playerMaxSize;
+
+    @Value("${l2-cache.transfer.max-size:50000}")
+    private long transferMaxSize;
+
+    @Value("${l2-cache.query.max-size:10000}")
+    private long queryMaxSize;
+
+    @Value("${l2-cache.ttl:300}")
+    private long ttlInSeconds;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, createCacheManager());
+    }
+
+    private CacheManager createCacheManager() {
+        // A cache manager of its own, the provider would share one per class loader between the contexts of the tests.
+        // Hibernate closes it with the session factory
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("soccermanager-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(TEAM_REGION, region(teamMaxSize, true));
+        cacheManager.createCache(TEAM_PLAYERS_REGION, region(teamMaxSize, true));
+        cacheManager.createCache(PLAYER_REGION, region(playerMaxSize, true));
+        cacheManager.createCache(TRANSFER_REGION, region(transferMaxSize, true));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryMaxSize, true));
+        // One entry per table, evicting one would make every cached query result look up to date
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(0, false));
+        return cacheManager;
+    }
+
+    // Entries are kept by reference, Hibernate stores them disassembled and never changes them
+    private CaffeineConfiguration<Object, Object> region(long maxSize, boolean expiring) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        if (maxSize > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (expiring) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlInSeconds)));
+        }
+        return configuration;
+    }
+}
@@ -0,0 +1,26 @@
+package com.toptal.soccermanager.configuration.cache;
+
+import com.toptal.soccermanager.model.entity.Team;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Squads of the teams kept in the team.players region of the second-level cache.
+ * A bulk delete of players does not evict them, a cascade from the team would load the cached squad
+ * and delete its players a second time.
+ */
+
+@Component
+public class SquadCache {
+    private static final String TEAM_PLAYERS_ROLE = Team.class.getName() + ".players";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void evict(long teamId) {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictCollectionData(TEAM_PLAYERS_ROLE, teamId);
+    }
+}
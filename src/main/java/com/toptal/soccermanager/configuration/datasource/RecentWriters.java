@@ -0,0 +1,78 @@
+package com.toptal.soccermanager.configuration.datasource;
+
+import com.toptal.soccermanager.utils.UserInfo;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users who committed a write in the last datasource.replica.read-your-writes seconds. Their read-only
+ * transactions stay on the primary, so a buyer sees the new player before the replica has caught up.
+ * Kept per instance: a read sent to another instance may still hit a lagging replica.
+ */
+
+public class RecentWriters {
+    private final long windowInMillis;
+    private final int maxSize;
+
+    private final Map<Long, Long> writes = new ConcurrentHashMap<>();
+
+    public RecentWriters(int windowInSeconds, int maxSize) {
+        this.windowInMillis = 1000L * windowInSeconds;
+        this.maxSize = maxSize;
+    }
+
+    // Records the current user as a writer once the current transaction commits
+    public void writing() {
+        Long userId = currentUserId();
+        if (userId == null || windowInMillis <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wrote(userId);
+            }
+        });
+    }
+
+    public boolean isCurrentUserWriter() {
+        Long userId = currentUserId();
+        if (userId == null) {
+            return false;
+        }
+        Long wroteAt = writes.get(userId);
+        if (wroteAt == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - wroteAt >= windowInMillis) {
+            writes.remove(userId, wroteAt);
+            return false;
+        }
+        return true;
+    }
+
+    private void wrote(long userId) {
+        long now = System.currentTimeMillis();
+        if (writes.size() >= maxSize) {
+            writes.values().removeIf(at -> now - at >= windowInMillis);
+            // Without room the user reads from the replica, as without the option
+            if (writes.size() >= maxSize) {
+                return;
+            }
+        }
+        writes.put(userId, now);
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserInfo) {
+            return ((UserInfo) authentication.getPrincipal()).getId();
+        }
+        return null;
+    }
+}
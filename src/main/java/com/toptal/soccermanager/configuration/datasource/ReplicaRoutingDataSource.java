@@ -0,0 +1,75 @@
+package com.toptal.soccermanager.configuration.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * The transaction is only marked read-only once begun, so this has to sit behind a LazyConnectionDataSourceProxy
+ * which asks for the connection on the first statement.
+ * A session reading from the replica only gets from the second-level and query caches, it does not put: the
+ * replica lags and the caches are shared by every user.
+ */
+
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final RecentWriters recentWriters;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, RecentWriters recentWriters,
+                                    ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.recentWriters = recentWriters;
+        this.entityManagerFactory = entityManagerFactory;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recentWriters.writing();
+            return PRIMARY;
+        }
+        if (recentWriters.isCurrentUserWriter()) {
+            return PRIMARY;
+        }
+        getOnlyFromCaches();
+        return REPLICA;
+    }
+
+    // For the current transaction only, the session may outlive it
+    private void getOnlyFromCaches() {
+        EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+        if (factory == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(factory);
+        if (holder == null) {
+            return;
+        }
+
+        Session session = holder.getEntityManager().unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (session.isOpen()) {
+                    session.setCacheMode(cacheMode);
+                }
+            }
+        });
+    }
+}
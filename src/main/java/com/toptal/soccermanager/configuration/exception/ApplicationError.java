@@ -8,6 +8,10 @@ public enum ApplicationError {
     USER_CREDENTIALS_INVALID(HttpStatus.BAD_REQUEST, "Incorrect email/password combination"),
     USER_DUPLICATED(HttpStatus.CONFLICT, "User with the mail already exists"),
     USER_BLOCKED(HttpStatus.BAD_REQUEST, "User is blocked. Please contact administrators"),
+    LOGIN_THROTTLED(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, please try again later"),
+    LOGIN_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins at the moment, please try again shortly"),
+    SIGNUP_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Too many passwords to hash at the moment, please try again shortly"),
+    REFRESH_TOKEN_INVALID(HttpStatus.UNAUTHORIZED, "Refresh token is invalid, expired or revoked. Please log in again"),
     USER_NOT_FOUND(HttpStatus.NOT_FOUND, "User with the email is not found"),
     TEAM_NOT_FOUND(HttpStatus.NOT_FOUND, "Team with the given parameters is not found, maybe you deleted it before"),
     MORE_THAN_ONE_TEAM(HttpStatus.BAD_REQUEST, "User already owns a team, a user is allowed to have only one team"),
@@ -0,0 +1,96 @@
+package com.toptal.soccermanager.configuration.metrics;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Times every public service method and every password hash or check, and counts the rows
+ * returned by the queries of the repositories. Repository call times come from Spring Boot's own
+ * spring.data.repository.invocations metric.
+ */
+
+@Aspect
+@Component
+public class MetricsAspect {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.toptal.soccermanager.service.impl.*ServiceImpl.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("soccermanager.service", joinPoint);
+    }
+
+    @Around("execution(* org.springframework.security.crypto.password.PasswordEncoder.*(..))")
+    public Object timePasswordEncoder(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("soccermanager.password.encoder", joinPoint);
+    }
+
+    @Around("execution(* com.toptal.soccermanager.repository.*Repository.*(..))")
+    public Object countRows(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        DistributionSummary rows = DistributionSummary.builder("soccermanager.repository.rows")
+                .tag("repository", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .register(meterRegistry);
+
+        if (result instanceof Slice) {
+            rows.record(((Slice<?>) result).getNumberOfElements());
+        } else if (result instanceof Collection) {
+            rows.record(((Collection<?>) result).size());
+        } else if (result instanceof Stream) {
+            // Streams are only counted once the caller has read and closed them
+            AtomicLong count = new AtomicLong();
+            return ((Stream<?>) result).peek(e -> count.incrementAndGet()).onClose(() -> rows.record(count.get()));
+        }
+        return result;
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            stop(sample, name, joinPoint, ex);
+            throw ex;
+        }
+        if (result instanceof CompletableFuture) {
+            // Asynchronous methods are timed until their result is there
+            return ((CompletableFuture<?>) result).whenComplete((value, ex) -> stop(sample, name, joinPoint, ex));
+        }
+        stop(sample, name, joinPoint, null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, String name, ProceedingJoinPoint joinPoint, Throwable ex) {
+        if (ex instanceof CompletionException && ex.getCause() != null) {
+            ex = ex.getCause();
+        }
+        String exception = "none";
+        if (ex != null) {
+            exception = ex instanceof ApplicationException
+                    ? ((ApplicationException) ex).getApplicationError().name()
+                    : ex.getClass().getSimpleName();
+        }
+        sample.stop(Timer.builder(name)
+                .tag("class", ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry));
+    }
+}
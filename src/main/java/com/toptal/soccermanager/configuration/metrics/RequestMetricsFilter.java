@@ -0,0 +1,62 @@
+package com.toptal.soccermanager.configuration.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Records the number of SQL statements each request needed, per endpoint, and logs the requests over their budget.
+ * Runs before the security filters, so the statements of the authentication are counted too.
+ */
+
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+    // Request attribute holding the number of statements of the request once it is done
+    public static final String STATEMENTS_ATTRIBUTE = RequestMetricsFilter.class.getName() + ".statements";
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        statementCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int budget = statementCounter.getBudget();
+            long statements = statementCounter.stop();
+            request.setAttribute(STATEMENTS_ATTRIBUTE, statements);
+            // Requests no handler matched are left out, their paths would make unbounded tags
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (statements > budget) {
+                log.warn("{} {} issued {} SQL statements, over its budget of {}",
+                        request.getMethod(), uri != null ? uri : request.getRequestURI(), statements, budget);
+            }
+            if (uri != null && statements >= 0) {
+                DistributionSummary.builder("soccermanager.request.statements")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri.toString())
+                        .register(meterRegistry)
+                        .record(statements);
+            }
+        }
+    }
+}
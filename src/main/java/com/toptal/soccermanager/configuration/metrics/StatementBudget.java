@@ -0,0 +1,14 @@
+package com.toptal.soccermanager.configuration.metrics;
+
+import java.lang.annotation.*;
+
+/**
+ * Number of SQL statements a handler may issue per request, when it needs more than the default budget.
+ */
+
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface StatementBudget {
+    int value();
+}
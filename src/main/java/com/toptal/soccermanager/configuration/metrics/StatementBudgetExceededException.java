@@ -0,0 +1,9 @@
+package com.toptal.soccermanager.configuration.metrics;
+
+public class StatementBudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public StatementBudgetExceededException(int budget, String sql) {
+        super("Request exceeded its budget of " + budget + " SQL statements with: " + sql);
+    }
+}
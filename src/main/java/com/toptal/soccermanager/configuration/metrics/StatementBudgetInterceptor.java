@@ -0,0 +1,26 @@
+package com.toptal.soccermanager.configuration.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+@Component
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            StatementBudget budget = ((HandlerMethod) handler).getMethodAnnotation(StatementBudget.class);
+            if (budget != null) {
+                statementCounter.setBudget(budget.value());
+            }
+        }
+        return true;
+    }
+}
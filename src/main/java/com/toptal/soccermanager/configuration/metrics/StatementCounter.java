@@ -0,0 +1,66 @@
+package com.toptal.soccermanager.configuration.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while counting is started,
+ * which is the number of database round trips of a request.
+ * Each request has a statement budget, by default sql.statement-budget.default or the one of its
+ * handler's @StatementBudget. With sql.statement-budget.fail the statement exceeding it fails,
+ * so a query per row shows up in the tests instead of in production.
+ */
+
+@Component
+public class StatementCounter implements StatementInspector {
+    @Value("${sql.statement-budget.default:10}")
+    private int defaultBudget;
+
+    @Value("${sql.statement-budget.fail:false}")
+    private boolean failOnExceeded;
+
+    private final ThreadLocal<Count> count = new ThreadLocal<>();
+
+    public void start() {
+        count.set(new Count(defaultBudget));
+    }
+
+    public void setBudget(int budget) {
+        Count counted = count.get();
+        if (counted != null) {
+            counted.budget = budget;
+        }
+    }
+
+    // Budget of the request counted on the current thread, -1 if counting was not started
+    public int getBudget() {
+        Count counted = count.get();
+        return counted != null ? counted.budget : -1;
+    }
+
+    // Returns the statements counted since start, -1 if counting was not started
+    public long stop() {
+        Count counted = count.get();
+        count.remove();
+        return counted != null ? counted.statements : -1;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Count counted = count.get();
+        if (counted != null && ++counted.statements > counted.budget && failOnExceeded) {
+            throw new StatementBudgetExceededException(counted.budget, sql);
+        }
+        return sql;
+    }
+
+    private static class Count {
+        private long statements;
+        private int budget;
+
+        Count(int budget) {
+            this.budget = budget;
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.toptal.soccermanager.controller;
 
-import com.toptal.soccermanager.configuration.authentication.JwtUtils;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.AuthDto;
 import com.toptal.soccermanager.model.dto.CredentialDto;
-import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.model.dto.RefreshTokenDto;
+import com.toptal.soccermanager.service.TokenService;
 import com.toptal.soccermanager.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -13,7 +13,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/auth")
@@ -22,15 +24,25 @@ public class AuthenticationController {
     private UserService userService;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private TokenService tokenService;
 
+    // Answered asynchronously, the request thread is let go while the password is checked
     @PostMapping("/token")
-    public ResponseEntity<AuthDto> login(@Valid @RequestBody CredentialDto credential) throws ApplicationException {
-        UserDto loginUser = userService.login(credential);
-        String token = jwtUtils.getJwtToken(loginUser);
+    public CompletableFuture<ResponseEntity<AuthDto>> login(@Valid @RequestBody CredentialDto credential,
+                                                          HttpServletRequest request) throws ApplicationException {
+        return userService.login(credential, request.getRemoteAddr())
+                .thenApply(loginUser -> ResponseEntity.ok(tokenService.issue(loginUser)));
+    }
 
-        AuthDto auth = new AuthDto(loginUser.getId(), loginUser.getId(), token);
+    // A new access token without the password, the refresh token given is exchanged for the next one
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthDto> refresh(@Valid @RequestBody RefreshTokenDto refreshToken) throws ApplicationException {
+        return ResponseEntity.ok(tokenService.refresh(refreshToken.getRefreshToken()));
+    }
 
-        return ResponseEntity.ok(auth);
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@Valid @RequestBody RefreshTokenDto refreshToken) {
+        tokenService.revoke(refreshToken.getRefreshToken());
+        return ResponseEntity.noContent().build();
     }
 }
@@ -3,15 +3,20 @@ package com.toptal.soccermanager.controller;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
 import com.toptal.soccermanager.service.TeamService;
+import com.toptal.soccermanager.utils.ETags;
+import com.toptal.soccermanager.utils.JsonStreamWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
-import java.util.List;
+import java.io.IOException;
+import java.util.Optional;
 
 /**
  * For endpoints about teams.
@@ -26,10 +31,20 @@ public class TeamController {
     @Autowired
     private TeamService teamService;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or (hasRole('ROLE_USER') and #id == authentication.principal.id)")
     public ResponseEntity<TeamDto> getById(@PathVariable("id") long id,
-                                           @RequestParam(required = false, name = "with_players", defaultValue = "false") boolean withPlayers) throws ApplicationException {
+                                           @RequestParam(required = false, name = "with_players", defaultValue = "false") boolean withPlayers,
+                                           WebRequest request) throws ApplicationException {
+        Optional<ResponseEntity<TeamDto>> notModified = ETags.checkNotModified(request,
+                () -> teamService.getRevision(id).map(revision -> ETags.team(id, revision, withPlayers)));
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
         TeamDto existTeam;
         if (withPlayers) {
             existTeam = teamService.getByIdWithPlayers(id);
@@ -37,35 +52,38 @@ public class TeamController {
             existTeam = teamService.getByIdWithoutPlayers(id);
         }
 
-        return ResponseEntity.ok(existTeam);
+        return ETags.ok(existTeam, ETags.team(existTeam, withPlayers));
+    }
+
+    // Without paging parameters the whole list is streamed, it is never held in memory at once
+    @GetMapping(params = {"!size", "!page", "!after"})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public void getAll(HttpServletResponse response) throws IOException {
+        jsonStreamWriter.<TeamDto>writeArray(response, teamService::streamAll);
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public ResponseEntity<?> getAll(@Pattern(regexp = "[\\s]*[0-9]*[1-9]+[0-9]*[\\s]*", message = "size must be greater than 0") @RequestParam(required = false, name = "size") String size,
-                                    @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page) throws ApplicationException {
-        if (size == null && page == null) {
-            List<TeamDto> existTeams = teamService.getAll();
-            return ResponseEntity.ok(existTeams);
+                                    @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page,
+                                    @RequestParam(required = false, name = "after") String after) throws ApplicationException {
+        int pageSize;
+        int pageNumber;
+        if (size == null) {
+            pageSize = 50;
         } else {
-            int pageSize;
-            int pageNumber;
-            if (size == null) {
-                pageSize = 50;
-            } else {
-                pageSize = Integer.parseInt(size.trim());
-            }
-            if (page == null) {
-                pageNumber = 0;
-            } else {
-                pageNumber = Integer.parseInt(page.trim());
-            }
-            if (pageSize > 100) {
-                pageSize = 100;
-            }
-            PagingDataRespDto<TeamDto> existTeams = teamService.getAll(new PagingDataReqDto(pageNumber, pageSize));
-            return ResponseEntity.ok(existTeams);
+            pageSize = Integer.parseInt(size.trim());
+        }
+        if (page == null) {
+            pageNumber = 0;
+        } else {
+            pageNumber = Integer.parseInt(page.trim());
+        }
+        if (pageSize > 100) {
+            pageSize = 100;
         }
+        PagingDataRespDto<TeamDto> existTeams = teamService.getAll(new PagingDataReqDto(pageNumber, pageSize, after));
+        return ResponseEntity.ok(existTeams);
     }
 
     @PatchMapping("/{id}")
@@ -3,16 +3,21 @@ package com.toptal.soccermanager.controller;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
 import com.toptal.soccermanager.service.PlayerService;
+import com.toptal.soccermanager.utils.ETags;
+import com.toptal.soccermanager.utils.JsonStreamWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
-import java.util.List;
+import java.io.IOException;
+import java.util.Optional;
 
 /**
  * For endpoints about player
@@ -27,6 +32,9 @@ public class TeamPlayerController {
     @Autowired
     public PlayerService playerService;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     @PostMapping
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public ResponseEntity<PlayerDto> create(@Valid @RequestBody PlayerCreateDto player, @PathVariable("teamId") long teamId) throws ApplicationException {
@@ -37,39 +45,49 @@ public class TeamPlayerController {
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or (hasRole('ROLE_USER') and #teamId == authentication.principal.id)")
-    public ResponseEntity<PlayerDto> getById(@PathVariable("id") long id, @PathVariable("teamId") long teamId) throws ApplicationException {
+    public ResponseEntity<PlayerDto> getById(@PathVariable("id") long id, @PathVariable("teamId") long teamId,
+                                             WebRequest request) throws ApplicationException {
+        Optional<ResponseEntity<PlayerDto>> notModified = ETags.checkNotModified(request,
+                () -> playerService.getRevision(id, teamId).map(revision -> ETags.player(id, revision)));
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
         PlayerDto existPlayer = playerService.getById(id, teamId);
 
-        return ResponseEntity.ok(existPlayer);
+        return ETags.ok(existPlayer, ETags.player(existPlayer));
+    }
+
+    // Without paging parameters the whole list is streamed, it is never held in memory at once
+    @GetMapping(params = {"!size", "!page", "!after"})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or (hasRole('ROLE_USER') and #teamId == authentication.principal.id)")
+    public void getAll(@PathVariable("teamId") long teamId, HttpServletResponse response) throws IOException {
+        jsonStreamWriter.<PlayerDto>writeArray(response, consumer -> playerService.streamAll(teamId, consumer));
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN') or (hasRole('ROLE_USER') and #teamId == authentication.principal.id)")
     public ResponseEntity<?> getAll(@Pattern(regexp = "[\\s]*[0-9]*[1-9]+[0-9]*[\\s]*", message = "size must be greater than 0") @RequestParam(required = false, name = "size") String size,
                                     @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page,
+                                    @RequestParam(required = false, name = "after") String after,
                                     @PathVariable("teamId") long teamId) throws ApplicationException {
-        if (size == null && page == null) {
-            List<PlayerDto> existPlayers = playerService.getAll(teamId);
-            return ResponseEntity.ok(existPlayers);
+        int pageSize;
+        int pageNumber;
+        if (size == null) {
+            pageSize = 50;
         } else {
-            int pageSize;
-            int pageNumber;
-            if (size == null) {
-                pageSize = 50;
-            } else {
-                pageSize = Integer.parseInt(size.trim());
-            }
-            if (page == null) {
-                pageNumber = 0;
-            } else {
-                pageNumber = Integer.parseInt(page.trim());
-            }
-            if (pageSize > 100) {
-                pageSize = 100;
-            }
-            PagingDataRespDto<PlayerDto> existPlayers = playerService.getAll(new PagingDataReqDto(pageNumber, pageSize), teamId);
-            return ResponseEntity.ok(existPlayers);
+            pageSize = Integer.parseInt(size.trim());
+        }
+        if (page == null) {
+            pageNumber = 0;
+        } else {
+            pageNumber = Integer.parseInt(page.trim());
+        }
+        if (pageSize > 100) {
+            pageSize = 100;
         }
+        PagingDataRespDto<PlayerDto> existPlayers = playerService.getAll(new PagingDataReqDto(pageNumber, pageSize, after), teamId);
+        return ResponseEntity.ok(existPlayers);
     }
 
     @PatchMapping("/{id}")
@@ -4,17 +4,24 @@ import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.PagingDataReqDto;
 import com.toptal.soccermanager.model.dto.PagingDataRespDto;
 import com.toptal.soccermanager.model.dto.TransferDto;
+import com.toptal.soccermanager.model.dto.TransferFilterDto;
 import com.toptal.soccermanager.service.TransferService;
+import com.toptal.soccermanager.utils.ETags;
+import com.toptal.soccermanager.utils.JsonStreamWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
-import java.util.List;
+import java.io.IOException;
+import java.util.Optional;
 
 /**
- * User can read all transfers
+ * User can read all transfers and search them by player, team and price
  */
 
 @RestController
@@ -24,37 +31,73 @@ public class TransferController {
     @Autowired
     public TransferService transferService;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     @GetMapping("/{id}")
-    public ResponseEntity<TransferDto> getById(@PathVariable("id") long id) throws ApplicationException {
+    public ResponseEntity<TransferDto> getById(@PathVariable("id") long id, WebRequest request) throws ApplicationException {
+        Optional<ResponseEntity<TransferDto>> notModified = ETags.checkNotModified(request,
+                () -> transferService.getRevision(id).map(revision -> ETags.transfer(id, revision)));
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
         TransferDto existTransfer = transferService.getById(id);
 
-        return ResponseEntity.ok(existTransfer);
+        return ETags.ok(existTransfer, ETags.transfer(existTransfer));
+    }
+
+    // Without paging parameters the whole list is streamed, it is never held in memory at once
+    @GetMapping(params = {"!size", "!page", "!after"})
+    public void getAll(HttpServletResponse response) throws IOException {
+        jsonStreamWriter.<TransferDto>writeArray(response, transferService::streamAll);
     }
 
     @GetMapping
     public ResponseEntity<?> getAll(@Pattern(regexp = "[\\s]*[0-9]*[1-9]+[0-9]*[\\s]*", message = "size must be greater than 0") @RequestParam(required = false, name = "size") String size,
-                                    @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page) throws ApplicationException {
-        if (size == null && page == null) {
-            List<TransferDto> existTransfers = transferService.getAll();
-            return ResponseEntity.ok(existTransfers);
+                                    @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page,
+                                    @RequestParam(required = false, name = "after") String after,
+                                    WebRequest request) throws ApplicationException {
+        int pageSize;
+        int pageNumber;
+        if (size == null) {
+            pageSize = 50;
+        } else {
+            pageSize = Integer.parseInt(size.trim());
+        }
+        if (page == null) {
+            pageNumber = 0;
         } else {
-            int pageSize;
-            int pageNumber;
-            if (size == null) {
-                pageSize = 50;
-            } else {
-                pageSize = Integer.parseInt(size.trim());
-            }
-            if (page == null) {
-                pageNumber = 0;
-            } else {
-                pageNumber = Integer.parseInt(page.trim());
-            }
-            if (pageSize > 100) {
-                pageSize = 100;
-            }
-            PagingDataRespDto<TransferDto> existTransfers = transferService.getAll(new PagingDataReqDto(pageNumber, pageSize));
-            return ResponseEntity.ok(existTransfers);
+            pageNumber = Integer.parseInt(page.trim());
         }
+        if (pageSize > 100) {
+            pageSize = 100;
+        }
+        PagingDataReqDto pageRequest = new PagingDataReqDto(pageNumber, pageSize, after);
+        // Keyset pages go untagged, the revision query only covers numbered pages
+        if (after != null) {
+            return ResponseEntity.ok(transferService.getAll(pageRequest));
+        }
+
+        Optional<ResponseEntity<Object>> notModified = ETags.checkNotModified(request,
+                () -> Optional.of(ETags.transferPage(transferService.getPageRevision(pageRequest))));
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+
+        PagingDataRespDto<TransferDto> existTransfers = transferService.getAll(pageRequest);
+        return ETags.ok(existTransfers, ETags.transferPage(existTransfers));
+    }
+
+    // Filters are query parameters named after the fields of TransferFilterDto, cheapest listings come first
+    @GetMapping("/search")
+    public ResponseEntity<PagingDataRespDto<TransferDto>> search(@Valid TransferFilterDto filter,
+                                                                 @Pattern(regexp = "[\\s]*[0-9]*[1-9]+[0-9]*[\\s]*", message = "size must be greater than 0") @RequestParam(required = false, name = "size") String size,
+                                                                 @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page) throws ApplicationException {
+        int pageSize = size == null ? 50 : Math.min(Integer.parseInt(size.trim()), 100);
+        int pageNumber = page == null ? 0 : Integer.parseInt(page.trim());
+
+        PagingDataRespDto<TransferDto> foundTransfers = transferService.search(filter, new PagingDataReqDto(pageNumber, pageSize));
+        return ResponseEntity.ok(foundTransfers);
     }
 }
@@ -1,8 +1,10 @@
 package com.toptal.soccermanager.controller;
 
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.configuration.metrics.StatementBudget;
 import com.toptal.soccermanager.model.dto.*;
 import com.toptal.soccermanager.service.UserService;
+import com.toptal.soccermanager.utils.JsonStreamWriter;
 import com.toptal.soccermanager.utils.UserInfo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,17 +14,25 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @Validated
 @RequestMapping("/users")
 public class UserController {
+    public static final int MAX_BULK_USERS = 50;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     // This endpoint is for sign up and team creation
     @PostMapping
     public ResponseEntity<UserDto> create(@Valid @RequestBody UserCreateDto user) throws ApplicationException {
@@ -31,6 +41,18 @@ public class UserController {
         return new ResponseEntity<>(signUpUser, HttpStatus.CREATED);
     }
 
+    // Signs up many users at once, for seeding leagues. The batch is capped by the cost of its password hashes,
+    // about 100 ms each. 50 users take about 35 statements
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @StatementBudget(100)
+    public ResponseEntity<List<UserDto>> createAll(@Size(min = 1, max = MAX_BULK_USERS, message = "between 1 and " + MAX_BULK_USERS + " users can be created at once")
+                                                   @RequestBody List<@Valid UserCreateDto> users) throws ApplicationException {
+        List<UserDto> signUpUsers = userService.createAll(users);
+
+        return new ResponseEntity<>(signUpUsers, HttpStatus.CREATED);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or (hasRole('ROLE_USER') and #id == authentication.principal.id)")
     public ResponseEntity<UserDto> getById(@PathVariable("id") long id) throws ApplicationException {
@@ -39,32 +61,35 @@ public class UserController {
         return ResponseEntity.ok(existUser);
     }
 
+    // Without paging parameters the whole list is streamed, it is never held in memory at once
+    @GetMapping(params = {"!size", "!page", "!after"})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public void getAll(HttpServletResponse response) throws IOException {
+        jsonStreamWriter.<UserDto>writeArray(response, userService::streamAll);
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public ResponseEntity<?> getAll(@Pattern(regexp = "[\\s]*[0-9]*[1-9]+[0-9]*[\\s]*", message = "size must be greater than 0") @RequestParam(required = false, name = "size") String size,
-                                    @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page) throws ApplicationException {
-        if (size == null && page == null) {
-            List<UserDto> existUsers = userService.getAll();
-            return ResponseEntity.ok(existUsers);
+                                    @Pattern(regexp = "[\\s]*[0-9]+[\\s]*", message = "page must be greater than or equal to 0") @RequestParam(required = false, name = "page") String page,
+                                    @RequestParam(required = false, name = "after") String after) throws ApplicationException {
+        int pageSize;
+        int pageNumber;
+        if (size == null) {
+            pageSize = 50;
         } else {
-            int pageSize;
-            int pageNumber;
-            if (size == null) {
-                pageSize = 50;
-            } else {
-                pageSize = Integer.parseInt(size.trim());
-            }
-            if (page == null) {
-                pageNumber = 0;
-            } else {
-                pageNumber = Integer.parseInt(page.trim());
-            }
-            if (pageSize > 100) {
-                pageSize = 100;
-            }
-            PagingDataRespDto<UserDto> existUser = userService.getAll(new PagingDataReqDto(pageNumber, pageSize));
-            return ResponseEntity.ok(existUser);
+            pageSize = Integer.parseInt(size.trim());
         }
+        if (page == null) {
+            pageNumber = 0;
+        } else {
+            pageNumber = Integer.parseInt(page.trim());
+        }
+        if (pageSize > 100) {
+            pageSize = 100;
+        }
+        PagingDataRespDto<UserDto> existUser = userService.getAll(new PagingDataReqDto(pageNumber, pageSize, after));
+        return ResponseEntity.ok(existUser);
     }
 
     @PatchMapping("/{id}")
@@ -11,4 +11,7 @@ public class AuthDto {
     long userId;
     long teamId;
     String token;
+    // Seconds the token is valid for, a new one is obtained with the refresh token
+    long expiresIn;
+    String refreshToken;
 }
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.Objects;
 
 @Data
 @NoArgsConstructor
@@ -19,11 +20,18 @@ public class PagingDataReqDto {
     @Max(100)
     private int pageSize;
 
+    // Opaque cursor of the last element already read, switches to keyset pagination when not null
+    private String after;
+
+    public PagingDataReqDto(int pageNumber, int pageSize) {
+        this(pageNumber, pageSize, null);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof PagingDataReqDto)) return false;
         PagingDataReqDto that = (PagingDataReqDto) o;
-        return pageNumber == that.pageNumber && pageSize == that.pageSize;
+        return pageNumber == that.pageNumber && pageSize == that.pageSize && Objects.equals(after, that.after);
     }
 }
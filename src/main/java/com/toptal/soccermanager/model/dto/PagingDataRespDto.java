@@ -1,5 +1,6 @@
 package com.toptal.soccermanager.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,9 +10,19 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PagingDataRespDto<T> {
-    private long totalElements;
-    private int totalPage;
+    // Totals are not counted with keyset pagination
+    private Long totalElements;
+    private Integer totalPage;
     private List<T> data;
-}
+    private String next;
+
+    public PagingDataRespDto(long totalElements, int totalPage, List<T> data) {
+        this(totalElements, totalPage, data, null);
+    }
 
+    public PagingDataRespDto(List<T> data, String next) {
+        this(null, null, data, next);
+    }
+}
@@ -33,5 +33,6 @@ public class PlayerCreateDto {
     private String position;
 
     @Min(0)
+    @Digits(integer = 15, fraction = 2)
     private double marketValue;
 }
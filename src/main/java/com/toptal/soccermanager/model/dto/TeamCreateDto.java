@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
@@ -21,5 +22,6 @@ public class TeamCreateDto {
     private String country;
 
     @Min(0)
+    @Digits(integer = 15, fraction = 2)
     private double budget;
 }
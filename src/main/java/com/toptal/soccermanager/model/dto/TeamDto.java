@@ -1,5 +1,6 @@
 package com.toptal.soccermanager.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,4 +20,7 @@ public class TeamDto {
     private String budget;
     private UserDto user;
     private Set<PlayerDto> players;
+    // Only for the entity tags of the responses
+    @JsonIgnore
+    private long revision;
 }
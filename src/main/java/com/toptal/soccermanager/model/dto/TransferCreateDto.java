@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.Min;
 
 @Data
@@ -13,5 +14,6 @@ public class TransferCreateDto {
     private long playerId;
 
     @Min(0)
+    @Digits(integer = 15, fraction = 2)
     private double askPrice;
 }
@@ -0,0 +1,45 @@
+package com.toptal.soccermanager.model.dto;
+
+import com.toptal.soccermanager.model.entity.Position;
+import com.toptal.soccermanager.utils.EnumValidator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Size;
+
+// Criteria of a transfer market search, every field left null matches any listing
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferFilterDto {
+    @Size(max = 60)
+    private String country;
+
+    @Size(max = 60)
+    private String teamName;
+
+    @Size(max = 30)
+    private String playerName;
+
+    @EnumValidator(enumClazz = Position.class)
+    private String position;
+
+    @Min(0)
+    @Digits(integer = 15, fraction = 2)
+    private Double minAskPrice;
+
+    @Min(0)
+    @Digits(integer = 15, fraction = 2)
+    private Double maxAskPrice;
+
+    @Min(0)
+    @Digits(integer = 15, fraction = 2)
+    private Double minMarketValue;
+
+    @Min(0)
+    @Digits(integer = 15, fraction = 2)
+    private Double maxMarketValue;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Digits;
 import javax.validation.constraints.Min;
 
 @Data
@@ -11,5 +12,6 @@ import javax.validation.constraints.Min;
 @AllArgsConstructor
 public class TransferUpdateDto {
     @Min(0)
+    @Digits(integer = 15, fraction = 2)
     private double askPrice;
 }
@@ -0,0 +1,61 @@
+package com.toptal.soccermanager.model.entity;
+
+import com.toptal.soccermanager.utils.MoneyFormatter;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Amount of money as an exact number of cents, so budgets and market values add up without rounding errors.
+ * Stored as a BIGINT column through MoneyConverter, and as is in the second-level cache.
+ */
+
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Money implements Comparable<Money>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    // Amounts coming from requests, rounded half up to the cent
+    public static Money of(double amount) {
+        return ofCents(Math.round(amount * 100));
+    }
+
+    public Money plus(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money minus(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    // Increases the amount by the given percentage, truncated to the cent
+    public Money plusPercent(int percent) {
+        return ofCents(Math.addExact(cents, Math.multiplyExact(cents, percent) / 100));
+    }
+
+    public boolean isLessThan(Money other) {
+        return cents < other.cents;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public String toString() {
+        return MoneyFormatter.format(this);
+    }
+}
@@ -1,19 +1,29 @@
 package com.toptal.soccermanager.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
-@Table(name = "player")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "player")
+// Indexes serve the squad of a team in position order and the transfer market search
+@Table(name = "player", indexes = {
+        @Index(name = "idx_player_team_position", columnList = "team_id, position"),
+        @Index(name = "idx_player_country_position_market_value", columnList = "country, position, market_value"),
+        @Index(name = "idx_player_position_market_value", columnList = "position, market_value")
+})
 @Getter
 @Setter
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Player {
+    // Ids are handed out in blocks of 50, so the inserts of a signup can be sent as one batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "player_seq")
+    @SequenceGenerator(name = "player_seq", sequenceName = "player_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "first_name", length = 30, nullable = false)
@@ -33,7 +43,7 @@ public class Player {
     private Position position;
 
     @Column(name = "market_value", nullable = false)
-    private double marketValue;
+    private Money marketValue = Money.ZERO;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
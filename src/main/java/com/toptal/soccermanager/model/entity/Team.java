@@ -1,13 +1,19 @@
 package com.toptal.soccermanager.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "team")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@DynamicUpdate
+@Table(name = "team", indexes = @Index(name = "idx_team_name", columnList = "name, user_id"))
 @Setter
 @Getter
 @ToString
@@ -25,27 +31,42 @@ public class Team {
     private String country;
 
     @Column(name = "budget", nullable = false)
-    private double budget;
+    private Money budget = Money.ZERO;
+
+    // Sum of the market values of the players, kept up to date on every change of the squad
+    @Column(name = "market_value", nullable = false, columnDefinition = "bigint default 0")
+    private Money marketValue = Money.ZERO;
+
+    // Entity tags of the team, its players and their listings are built from it, see revise
+    @Column(name = "revision", nullable = false, columnDefinition = "bigint default 0")
+    private long revision;
 
     @OneToOne(fetch = FetchType.LAZY)
     @MapsId
     @JoinColumn(name = "user_id")
     private User user;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team.players")
     @OneToMany(mappedBy = "team", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private Set<Player> players = new HashSet<>();
 
-    public double getMarketValue() {
-        return players.stream().mapToDouble(Player::getMarketValue).sum();
-    }
-
     public void addPlayer(Player player) {
         players.add(player);
         player.setTeam(this);
+        marketValue = marketValue.plus(player.getMarketValue());
+        revise();
     }
 
     public void removePlayer(Player player) {
         players.remove(player);
         player.setTeam(null);
+        marketValue = marketValue.minus(player.getMarketValue());
+        revise();
+    }
+
+    // Called on every change to the team, its players or their listings. The new revision is random rather than
+    // counted, so concurrent changes never end on a revision the team already had without locking its row
+    public void revise() {
+        revision = ThreadLocalRandom.current().nextLong();
     }
 }
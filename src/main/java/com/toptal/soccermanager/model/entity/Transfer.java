@@ -1,11 +1,14 @@
 package com.toptal.soccermanager.model.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
-@Table(name = "transfer")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "transfer")
+@Table(name = "transfer", indexes = @Index(name = "idx_transfer_ask_price", columnList = "ask_price, player_id"))
 @Getter
 @Setter
 @ToString
@@ -17,7 +20,7 @@ public class Transfer {
     private long id;
 
     @Column(name = "ask_price", nullable = false)
-    private double askPrice;
+    private Money askPrice = Money.ZERO;
 
     @OneToOne(fetch = FetchType.LAZY)
     @MapsId
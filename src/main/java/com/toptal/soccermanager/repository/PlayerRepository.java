@@ -1,49 +1,126 @@
 package com.toptal.soccermanager.repository;
 
 import com.toptal.soccermanager.model.entity.Player;
+import com.toptal.soccermanager.model.entity.Position;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, Long>, JpaSpecificationExecutor<Player> {
-    @Query("select distinct p from Player p " +
+    @Query("select p from Player p " +
             "join fetch p.team pm " +
             "left join fetch p.transfer " +
             "where pm.id = :teamId")
-    List<Player> findAllPlayersByTeamId(long teamId);
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Player> streamAllPlayersByTeamId(long teamId);
+
+    // Pages are loaded in two steps: the page of ids with a plain limit/offset, then the players with their team and transfer
+    default Page<Player> findAllPlayersByTeamId(long teamId, Pageable pageable) {
+        return loadPlayerPage(findPlayerIdsByTeamId(teamId, pageable));
+    }
+
+    @Query(value = "select p.id from Player p " +
+            "where p.team.id = :teamId",
+    countQuery = "select count(p) from Player p " +
+            "where p.team.id = :teamId")
+    Page<Long> findPlayerIdsByTeamId(long teamId, Pageable pageable);
+
+    @Query("select p from Player p " +
+            "left join fetch p.team " +
+            "left join fetch p.transfer")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Player> streamAllPlayers();
+
+    default Page<Player> findAllPlayers(Pageable pageable) {
+        return loadPlayerPage(findPlayerIds(pageable));
+    }
+
+    @Query(value = "select p.id from Player p",
+    countQuery = "select count(p) from Player p")
+    Page<Long> findPlayerIds(Pageable pageable);
+
+    // The transfer is on the inverse side of a shared key and would be loaded by a query of its own
+    @Query("select p from Player p " +
+            "left join fetch p.team " +
+            "left join fetch p.transfer " +
+            "where p.id = :id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    Optional<Player> findByIdWithTeam(long id);
 
-    @Query(value = "select distinct p from Player p " +
+    @Query("select t.revision from Player p " +
+            "join p.team t " +
+            "where p.id = :id and t.id = :teamId")
+    Optional<Long> findTeamRevisionById(long id, long teamId);
+
+    @Query("select p from Player p " +
+            "left join fetch p.team " +
+            "left join fetch p.transfer " +
+            "where p.id in :ids")
+    List<Player> findAllPlayersByIdIn(Collection<Long> ids);
+
+    @Query("select p from Player p " +
             "join fetch p.team pm " +
             "left join fetch p.transfer " +
-            "where pm.id = :teamId",
-    countQuery = "select count(distinct p) from Player p " +
-            "join p.team pm " +
-            "left join p.transfer " +
             "where pm.id = :teamId")
-    Page<Player> findAllPlayersByTeamId(long teamId, Pageable pageable);
+    Slice<Player> findSliceByTeamId(long teamId, Pageable pageable);
+
+    @Query("select p from Player p " +
+            "join fetch p.team pm " +
+            "left join fetch p.transfer " +
+            "where pm.id = :teamId " +
+            "and (p.position > :position or (p.position = :position and p.id > :id))")
+    Slice<Player> findSliceByTeamIdAfter(long teamId, Position position, long id, Pageable pageable);
 
-    @Query("select distinct p from Player p " +
+    @Query("select p from Player p " +
             "left join fetch p.team " +
-            "left join fetch p.transfer" )
-    List<Player> findAllPlayers();
+            "left join fetch p.transfer")
+    Slice<Player> findSlice(Pageable pageable);
 
-    @Query(value = "select distinct p from Player p " +
+    @Query("select p from Player p " +
             "left join fetch p.team " +
-            "left join fetch p.transfer",
-    countQuery = "select count(distinct p) from Player p " +
-            "left join p.team " +
-            "left join p.transfer")
-    Page<Player> findAllPlayers(Pageable pageable);
+            "left join fetch p.transfer " +
+            "where p.position > :position or (p.position = :position and p.id > :id)")
+    Slice<Player> findSliceAfter(Position position, long id, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Player p where p.team.id = :teamId")
+    int deleteAllByTeamId(long teamId);
+
+    private Page<Player> loadPlayerPage(Page<Long> idPage) {
+        if (!idPage.hasContent()) {
+            return new PageImpl<>(new ArrayList<>(), idPage.getPageable(), idPage.getTotalElements());
+        }
+        Map<Long, Player> players = findAllPlayersByIdIn(idPage.getContent()).stream()
+                .collect(Collectors.toMap(Player::getId, Function.identity()));
+        // Keep the order of the id page
+        return idPage.map(players::get);
+    }
 }
@@ -0,0 +1,36 @@
+package com.toptal.soccermanager.repository;
+
+import com.toptal.soccermanager.model.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    // The user is needed to issue the access token, so it comes in the same query
+    @Query("select t from RefreshToken t " +
+            "join fetch t.user u " +
+            "where t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(String tokenHash);
+
+    // Only one of concurrent exchanges of the same token gets 1
+    @Modifying
+    @Query("update RefreshToken t set t.used = true where t.id = :id and t.used = false and t.revoked = false")
+    int markUsed(long id);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.family = :family and t.revoked = false")
+    int revokeFamily(String family);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.user.id = :userId and t.revoked = false")
+    int revokeAllByUserId(long userId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :now")
+    int deleteAllExpiredBefore(Instant now);
+}
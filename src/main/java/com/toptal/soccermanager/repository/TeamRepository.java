@@ -1,14 +1,26 @@
 package com.toptal.soccermanager.repository;
 
 import com.toptal.soccermanager.model.entity.Team;
-import com.toptal.soccermanager.utils.TeamPair;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface TeamRepository extends JpaRepository<Team, Long> {
@@ -16,18 +28,40 @@ public interface TeamRepository extends JpaRepository<Team, Long> {
             "left join fetch t.players p " +
             "left join fetch p.transfer " +
             "where t.id = :id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Team> findByIdWithPlayers(long id);
 
-    @Query("select new com.toptal.soccermanager.utils.TeamPair(t, sum(p.marketValue)) " +
-            "from Team t " +
+    // Revision alone, a conditional request is answered without loading the team
+    @Query("select t.revision from Team t where t.id = :id")
+    Optional<Long> findRevisionById(long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Team t where t.id = :id")
+    Optional<Team> findByIdForUpdate(long id);
+
+    // Teams whose stored market value no longer matches the sum over their players
+    @Query("select t.id from Team t " +
             "left join t.players p " +
-            "group by t.id " +
-            "having t.id = :id")
-    /*@Query(value = "select t as team, sum(p.market_value) as marketValue from team t " +
-            "left join player p on t.user_id = p.team_id " +
-            "group by t.user_id having t.user_id = :id", nativeQuery = true)*/
-    Optional<TeamPair> findByIdWithoutPlayers(long id);
-
-    @Query("select t, sum(p.marketValue) from Team t left join t.players p")
-    Page<TeamPair> findAllWithoutPlayers(Pageable pageable);
+            "group by t.id, t.marketValue " +
+            "having t.marketValue <> coalesce(sum(p.marketValue), 0)")
+    List<Long> findIdsWithMarketValueDrift();
+
+    // Only the cached teams are evicted, a native update would otherwise clear every region of the second-level cache
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "team"))
+    @Query(value = "update team set market_value = " +
+            "(select coalesce(sum(p.market_value), 0) from player p where p.team_id = team.user_id), " +
+            "revision = revision + 1 " +
+            "where user_id in (:ids)", nativeQuery = true)
+    int recomputeMarketValue(Collection<Long> ids);
+
+    Slice<Team> findSliceBy(Pageable pageable);
+
+    @Query("select t from Team t " +
+            "where t.name > :name or (t.name = :name and t.id > :id)")
+    Slice<Team> findSliceAfter(String name, long id, Pageable pageable);
+
+    @Query("select t from Team t")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Team> streamAll();
 }
@@ -1,22 +1,44 @@
 package com.toptal.soccermanager.repository;
 
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Transfer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface TransferRepository extends JpaRepository<Transfer, Long> {
+public interface TransferRepository extends JpaRepository<Transfer, Long>, JpaSpecificationExecutor<Transfer> {
     @Query("select t from Transfer t " +
             "join fetch t.player p " +
             "join fetch p.team where t.id = :id")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Transfer> findByIdWithPlayers(long id);
 
+    @Query("select tm.revision from Transfer t " +
+            "join t.player p " +
+            "join p.team tm where t.id = :id")
+    Optional<Long> findTeamRevisionById(long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transfer t where t.id = :id")
+    Optional<Transfer> findByIdForUpdate(long id);
+
     @Query(value = "select t from Transfer t " +
             "join fetch t.player p " +
             "join fetch p.team",
@@ -25,8 +47,39 @@ public interface TransferRepository extends JpaRepository<Transfer, Long> {
             "join p.team")
     Page<Transfer> findAllWithPlayers(Pageable pageable);
 
+    // The same page as findAllWithPlayers, reduced to what its entity tag is built from
+    @Query(value = "select t.id as transferId, tm.revision as teamRevision from Transfer t " +
+            "join t.player p " +
+            "join p.team tm",
+    countQuery = "select count(t) from Transfer t " +
+            "join t.player p " +
+            "join p.team")
+    Page<ListingRevision> findAllRevisions(Pageable pageable);
+
     @Query("select t from Transfer t " +
             "join fetch t.player p " +
             "join fetch p.team")
-    List<Transfer> findAllWithPlayers();
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<Transfer> streamAllWithPlayers();
+
+    @Query("select t from Transfer t " +
+            "join fetch t.player p " +
+            "join fetch p.team")
+    Slice<Transfer> findSliceWithPlayers(Pageable pageable);
+
+    @Query("select t from Transfer t " +
+            "join fetch t.player p " +
+            "join fetch p.team " +
+            "where t.askPrice > :askPrice or (t.askPrice = :askPrice and t.id > :id)")
+    Slice<Transfer> findSliceWithPlayersAfter(Money askPrice, long id, Pageable pageable);
+
+    // A transfer shares the id of its player
+    @Modifying
+    @Query("delete from Transfer t where t.id in (select p.id from Player p where p.team.id = :teamId)")
+    int deleteAllByTeamId(long teamId);
+
+    interface ListingRevision {
+        long getTransferId();
+        long getTeamRevision();
+    }
 }
@@ -0,0 +1,107 @@
+package com.toptal.soccermanager.repository;
+
+import com.toptal.soccermanager.model.entity.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.*;
+
+/**
+ * Criteria of the transfer market search. Each one matches any listing when its value is null,
+ * so a search is the conjunction of all of them.
+ * Country and position are matched exactly and prices by range, which the composite indexes on
+ * player and transfer serve; team and player names by a prefix, ignoring case.
+ */
+
+public final class TransferSpecifications {
+    private TransferSpecifications() {
+    }
+
+    // The player and its team are fetched with the listings, but only joined when the query counts them
+    public static Specification<Transfer> withPlayers() {
+        return (root, query, builder) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("player").fetch("team");
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Transfer> playerCountry(String country) {
+        return (root, query, builder) -> country == null ? null
+                : builder.equal(player(root).get("country"), country);
+    }
+
+    public static Specification<Transfer> playerPosition(Position position) {
+        return (root, query, builder) -> position == null ? null
+                : builder.equal(player(root).get("position"), position);
+    }
+
+    public static Specification<Transfer> teamNameStartsWith(String name) {
+        return (root, query, builder) -> name == null ? null
+                : startsWith(builder, team(root).get("name"), name);
+    }
+
+    public static Specification<Transfer> playerNameStartsWith(String name) {
+        return (root, query, builder) -> name == null ? null
+                : builder.or(startsWith(builder, player(root).get("firstName"), name),
+                        startsWith(builder, player(root).get("lastName"), name));
+    }
+
+    public static Specification<Transfer> askPriceBetween(Money min, Money max) {
+        return (root, query, builder) -> between(builder, root.get("askPrice"), min, max);
+    }
+
+    public static Specification<Transfer> marketValueBetween(Money min, Money max) {
+        return (root, query, builder) -> between(builder, player(root).get("marketValue"), min, max);
+    }
+
+    private static Predicate between(CriteriaBuilder builder, Path<Money> path, Money min, Money max) {
+        if (min != null && max != null) {
+            return builder.between(path, min, max);
+        }
+        if (min != null) {
+            return builder.greaterThanOrEqualTo(path, min);
+        }
+        return max != null ? builder.lessThanOrEqualTo(path, max) : null;
+    }
+
+    private static Predicate startsWith(CriteriaBuilder builder, Path<String> path, String prefix) {
+        String pattern = prefix.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return builder.like(builder.lower(path), pattern, '\\');
+    }
+
+    // Reuses the join or fetch of the player, so every criterion filters the same row
+    @SuppressWarnings("unchecked")
+    private static From<?, Player> player(Root<Transfer> root) {
+        for (Fetch<Transfer, ?> fetch : root.getFetches()) {
+            if (fetch.getAttribute().getName().equals("player")) {
+                return (From<?, Player>) fetch;
+            }
+        }
+        for (Join<Transfer, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("player")) {
+                return (From<?, Player>) join;
+            }
+        }
+        return root.join("player");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static From<?, Team> team(Root<Transfer> root) {
+        From<?, Player> player = player(root);
+        for (Fetch<Player, ?> fetch : player.getFetches()) {
+            if (fetch.getAttribute().getName().equals("team")) {
+                return (From<?, Team>) fetch;
+            }
+        }
+        for (Join<Player, ?> join : player.getJoins()) {
+            if (join.getAttribute().getName().equals("team")) {
+                return (From<?, Team>) join;
+            }
+        }
+        return player.join("team");
+    }
+}
@@ -1,12 +1,79 @@
 package com.toptal.soccermanager.repository;
 
+import com.toptal.soccermanager.model.entity.Status;
 import com.toptal.soccermanager.model.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // A user's team is on the inverse side of a shared key and cannot be proxied, so it is always fetched in the same query.
+    // Read from the primary, login must not let in a user a lagging replica still sees as active
+    @Transactional
+    @Query("select u from User u " +
+            "left join fetch u.team " +
+            "where u.email = :email")
     Optional<User> findOneByEmail(String email);
+
+    // Principals are read from the primary, a replica lagging behind would still let a blocked user in
+    @Transactional
+    @Query("select u from User u " +
+            "left join fetch u.team " +
+            "where u.id = :id")
+    Optional<User> findByIdWithTeam(long id);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.loginAttempts = 0 where u.id = :id")
+    int resetLoginAttempts(long id);
+
+    // Only replaces the hash the login was checked against, a password changed meanwhile is kept
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :upgradedPassword where u.id = :id and u.password = :password")
+    int upgradePassword(long id, String password, String upgradedPassword);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.status = :status where u.id = :id")
+    int updateStatus(long id, Status status);
+
+    // Read from the primary, signups check for taken emails before their transaction starts
+    @Transactional
+    List<User> findAllByEmailIn(Collection<String> emails);
+
+    @Query(value = "select u from User u " +
+            "left join fetch u.team",
+    countQuery = "select count(u) from User u")
+    Page<User> findAllWithTeam(Pageable pageable);
+
+    @Query("select u from User u " +
+            "left join fetch u.team")
+    Slice<User> findSliceBy(Pageable pageable);
+
+    @Query("select u from User u " +
+            "left join fetch u.team " +
+            "where u.email > :email or (u.email = :email and u.id > :id)")
+    Slice<User> findSliceAfter(String email, long id, Pageable pageable);
+
+    @Query("select u from User u " +
+            "left join fetch u.team")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    Stream<User> streamAll();
 }
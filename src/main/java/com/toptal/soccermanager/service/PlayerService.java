@@ -3,13 +3,15 @@ package com.toptal.soccermanager.service;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
 
-import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface PlayerService {
     PlayerDto create(PlayerCreateDto player, long teamId) throws ApplicationException;
     PlayerDto getById(long id, Long teamId) throws ApplicationException;
+    Optional<Long> getRevision(long id, long teamId);
     PagingDataRespDto<PlayerDto> getAll(PagingDataReqDto pageRequest, Long teamId) throws ApplicationException;
-    List<PlayerDto> getAll(Long teamId);
+    void streamAll(Long teamId, Consumer<PlayerDto> consumer);
     PlayerDto update(long id, PlayerUpdateDto player, Long teamId) throws ApplicationException;
     boolean delete(long id, Long teamId) throws ApplicationException;
 }
@@ -3,14 +3,17 @@ package com.toptal.soccermanager.service;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
 
-import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface TeamService {
     TeamDto create(TeamCreateDto team, long userId) throws ApplicationException;
     TeamDto getByIdWithPlayers(long id) throws ApplicationException;
     TeamDto getByIdWithoutPlayers(long id) throws ApplicationException;
+    Optional<Long> getRevision(long id);
     PagingDataRespDto<TeamDto> getAll(PagingDataReqDto pageRequest) throws ApplicationException;
-    List<TeamDto> getAll();
+    void streamAll(Consumer<TeamDto> consumer);
     TeamDto update(long id, TeamUpdateDto player) throws ApplicationException;
     boolean delete(long id) throws ApplicationException;
+    int reconcileMarketValues();
 }
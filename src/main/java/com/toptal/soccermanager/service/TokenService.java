@@ -0,0 +1,13 @@
+package com.toptal.soccermanager.service;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.AuthDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+
+public interface TokenService {
+    AuthDto issue(UserDto user);
+    AuthDto refresh(String refreshToken) throws ApplicationException;
+    void revoke(String refreshToken);
+    void revokeAll(long userId);
+    int purgeExpired();
+}
@@ -3,13 +3,17 @@ package com.toptal.soccermanager.service;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
 
-import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface TransferService {
     TransferDto create(TransferCreateDto transfer, Long teamId) throws ApplicationException;
     TransferDto getById(long id) throws ApplicationException;
+    Optional<Long> getRevision(long id);
     PagingDataRespDto<TransferDto> getAll(PagingDataReqDto pageRequest) throws ApplicationException;
-    List<TransferDto> getAll();
+    long getPageRevision(PagingDataReqDto pageRequest);
+    PagingDataRespDto<TransferDto> search(TransferFilterDto filter, PagingDataReqDto pageRequest) throws ApplicationException;
+    void streamAll(Consumer<TransferDto> consumer);
     TransferDto update(long id, TransferUpdateDto transfer, Long teamId) throws ApplicationException;
     boolean delete(long id, Long teamId) throws ApplicationException;
 }
@@ -4,13 +4,16 @@ import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface UserService {
     UserDto create(UserCreateDto user) throws ApplicationException;
+    List<UserDto> createAll(List<UserCreateDto> users) throws ApplicationException;
     UserDto getById(long id) throws ApplicationException;
     PagingDataRespDto<UserDto> getAll(PagingDataReqDto pageRequest) throws ApplicationException;
-    List<UserDto> getAll();
+    void streamAll(Consumer<UserDto> consumer);
     UserDto update(long id, UserUpdateDto user) throws ApplicationException;
     boolean delete(long id) throws ApplicationException;
-    UserDto login(CredentialDto credential) throws ApplicationException;
+    CompletableFuture<UserDto> login(CredentialDto credential, String clientAddress) throws ApplicationException;
 }
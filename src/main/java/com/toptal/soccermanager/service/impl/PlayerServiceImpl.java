@@ -3,22 +3,32 @@ package com.toptal.soccermanager.service.impl;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Player;
 import com.toptal.soccermanager.model.entity.Position;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.repository.PlayerRepository;
 import com.toptal.soccermanager.repository.TeamRepository;
 import com.toptal.soccermanager.service.PlayerService;
+import com.toptal.soccermanager.utils.EntityStreams;
 import com.toptal.soccermanager.utils.Mapper;
+import com.toptal.soccermanager.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PlayerServiceImpl implements PlayerService {
@@ -31,10 +41,14 @@ public class PlayerServiceImpl implements PlayerService {
     @Autowired
     private Mapper mapper;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
     @Transactional
     public PlayerDto create(PlayerCreateDto player, long teamId) throws ApplicationException {
-        Team team = teamRepository.findById(teamId)
+        // Locked like in a purchase, the market value of the team is read and written back
+        Team team = teamRepository.findByIdForUpdate(teamId)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
 
         Player newPlayer = new Player();
@@ -44,23 +58,37 @@ public class PlayerServiceImpl implements PlayerService {
         newPlayer.setAge(player.getAge());
         String position = player.getPosition();
         newPlayer.setPosition(Position.valueOf(position.substring(0, 1).toUpperCase() + position.substring(1).toLowerCase()));
-        newPlayer.setMarketValue(player.getMarketValue());
+        newPlayer.setMarketValue(Money.of(player.getMarketValue()));
         newPlayer.setTeam(team);
+        team.setMarketValue(team.getMarketValue().plus(newPlayer.getMarketValue()));
+        team.revise();
 
         Player savedPlayer = playerRepository.save(newPlayer);
         return mapper.getPlayerDtoFromEntity(savedPlayer, true, false);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public PlayerDto getById(long id, Long teamId) throws ApplicationException {
         Player existPlayer = checkPlayerWithTeamId(id, teamId);
 
         return mapper.getPlayerDtoFromEntity(existPlayer, true, true);
     }
 
+    // Revision of the team of the player, empty when the player isn't in that team
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getRevision(long id, long teamId) {
+        return playerRepository.findTeamRevisionById(id, teamId);
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public PagingDataRespDto<PlayerDto> getAll(PagingDataReqDto pageRequest, Long teamId) throws ApplicationException {
+        if (pageRequest.getAfter() != null) {
+            return getAllAfter(pageRequest, teamId);
+        }
+
         int pageSize = pageRequest.getPageSize();
         int pageNumber = pageRequest.getPageNumber();
 
@@ -88,17 +116,16 @@ public class PlayerServiceImpl implements PlayerService {
     }
 
     @Override
-    @Transactional
-    public List<PlayerDto> getAll(Long teamId) {
-        List<Player> players;
+    @Transactional(readOnly = true)
+    public void streamAll(Long teamId, Consumer<PlayerDto> consumer) {
+        Stream<Player> players;
 
         if (teamId != null) {
-            players = playerRepository.findAllPlayersByTeamId(teamId);
+            players = playerRepository.streamAllPlayersByTeamId(teamId);
         } else {
-            players = playerRepository.findAllPlayers();
+            players = playerRepository.streamAllPlayers();
         }
-        return players.stream().map(p -> mapper.getPlayerDtoFromEntity(p, true, true))
-                .collect(Collectors.toList());
+        EntityStreams.forEach(players, entityManager, p -> mapper.getPlayerDtoFromEntity(p, true, true), consumer);
     }
 
     @Override
@@ -115,6 +142,9 @@ public class PlayerServiceImpl implements PlayerService {
         if (player.getCountry() != null && !player.getCountry().isBlank()) {
             existPlayer.setCountry(player.getCountry());
         }
+        if (existPlayer.getTeam() != null) {
+            existPlayer.getTeam().revise();
+        }
 
         Player savedPlayer = playerRepository.save(existPlayer);
         return mapper.getPlayerDtoFromEntity(savedPlayer, true, true);
@@ -125,13 +155,20 @@ public class PlayerServiceImpl implements PlayerService {
     public boolean delete(long id, Long teamId) throws ApplicationException {
         Player deletedPlayer = checkPlayerWithTeamId(id, teamId);
 
+        Team team = deletedPlayer.getTeam();
+        if (team != null) {
+            // Locked and read again, the team fetched with the player may come from the second-level cache
+            entityManager.refresh(team, LockModeType.PESSIMISTIC_WRITE);
+            team.setMarketValue(team.getMarketValue().minus(deletedPlayer.getMarketValue()));
+            team.revise();
+        }
         playerRepository.delete(deletedPlayer);
         //return mapper.getPlayerDtoFromEntity(deletedPlayer, true, true);
         return true;
     }
 
     private Player checkPlayerWithTeamId(long playerId, Long teamId) throws ApplicationException {
-        Player existPlayer = playerRepository.findById(playerId)
+        Player existPlayer = playerRepository.findByIdWithTeam(playerId)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.PLAYER_NOT_FOUND));
 
         if (teamId != null && (existPlayer.getTeam() == null || existPlayer.getTeam().getId() != teamId)) {
@@ -140,4 +177,36 @@ public class PlayerServiceImpl implements PlayerService {
 
         return existPlayer;
     }
+
+    private PagingDataRespDto<PlayerDto> getAllAfter(PagingDataReqDto pageRequest, Long teamId) throws ApplicationException {
+        PageCursor cursor = PageCursor.decode(pageRequest.getAfter());
+        PageRequest slice = PageRequest.of(0, pageRequest.getPageSize(), Sort.Direction.ASC, "position", "id");
+
+        Slice<Player> playerSlice = null;
+        try {
+            if (cursor == null) {
+                playerSlice = teamId != null
+                        ? playerRepository.findSliceByTeamId(teamId, slice)
+                        : playerRepository.findSlice(slice);
+            } else {
+                Position position = Position.valueOf(cursor.getKey());
+                playerSlice = teamId != null
+                        ? playerRepository.findSliceByTeamIdAfter(teamId, position, cursor.getId(), slice)
+                        : playerRepository.findSliceAfter(position, cursor.getId(), slice);
+            }
+        } catch (Exception ex) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, ex.getMessage());
+        }
+
+        List<Player> players = playerSlice.getContent();
+        String next = null;
+        if (playerSlice.hasNext()) {
+            Player last = players.get(players.size() - 1);
+            next = new PageCursor(last.getPosition().name(), last.getId()).encode();
+        }
+        return new PagingDataRespDto<>(
+                players.stream().map(p -> mapper.getPlayerDtoFromEntity(p, true, true)).collect(Collectors.toList()),
+                next
+        );
+    }
 }
@@ -1,25 +1,38 @@
 package com.toptal.soccermanager.service.impl;
 
+import com.toptal.soccermanager.configuration.cache.SquadCache;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.model.entity.User;
+import com.toptal.soccermanager.repository.PlayerRepository;
 import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
 import com.toptal.soccermanager.repository.UserRepository;
 import com.toptal.soccermanager.service.TeamService;
+import com.toptal.soccermanager.utils.EntityStreams;
 import com.toptal.soccermanager.utils.Mapper;
-import com.toptal.soccermanager.utils.TeamPair;
+import com.toptal.soccermanager.utils.PageCursor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class TeamServiceImpl implements TeamService {
     @Autowired
@@ -28,9 +41,21 @@ public class TeamServiceImpl implements TeamService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private SquadCache squadCache;
+
     @Autowired
     private Mapper mapper;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
     @Transactional
     public TeamDto create(TeamCreateDto team, long userId) throws ApplicationException {
@@ -44,7 +69,7 @@ public class TeamServiceImpl implements TeamService {
         Team newTeam = new Team();
         newTeam.setName(team.getName());
         newTeam.setCountry(team.getCountry());
-        newTeam.setBudget(team.getBudget());
+        newTeam.setBudget(Money.of(team.getBudget()));
         newTeam.setUser(user);
 
         Team savedTeam = teamRepository.save(newTeam);
@@ -52,7 +77,7 @@ public class TeamServiceImpl implements TeamService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TeamDto getByIdWithPlayers(long id) throws ApplicationException {
         Team existTeam = teamRepository.findByIdWithPlayers(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
@@ -61,16 +86,28 @@ public class TeamServiceImpl implements TeamService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TeamDto getByIdWithoutPlayers(long id) throws ApplicationException {
-        TeamPair existTeam = teamRepository.findByIdWithoutPlayers(id)
+        Team existTeam = teamRepository.findById(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
 
-        return mapper.getTeamDtoFromEntity(existTeam.getTeam(), existTeam.getMarketValue());
+        return mapper.getTeamDtoFromEntity(existTeam, true, false, false);
+    }
+
+    // Revision of the team, its players and their listings
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getRevision(long id) {
+        return teamRepository.findRevisionById(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagingDataRespDto<TeamDto> getAll(PagingDataReqDto pageRequest) throws ApplicationException {
+        if (pageRequest.getAfter() != null) {
+            return getAllAfter(pageRequest);
+        }
+
         int pageSize = pageRequest.getPageSize();
         int pageNumber = pageRequest.getPageNumber();
 
@@ -91,28 +128,28 @@ public class TeamServiceImpl implements TeamService {
     }
 
     @Override
-    @Transactional
-    public List<TeamDto> getAll() {
-        List<Team> existTeams = teamRepository.findAll();
-        return existTeams.stream().map(t -> mapper.getTeamDtoFromEntity(t, false, false, false)).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<TeamDto> consumer) {
+        EntityStreams.forEach(teamRepository.streamAll(), entityManager,
+                t -> mapper.getTeamDtoFromEntity(t, false, false, false), consumer);
     }
 
     @Override
     @Transactional
     public TeamDto update(long id, TeamUpdateDto team) throws ApplicationException {
-        TeamPair teamPair = teamRepository.findByIdWithoutPlayers(id)
+        Team existTeam = teamRepository.findById(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
 
-        Team existTeam  = teamPair.getTeam();
         if (team.getName() != null && !team.getName().isBlank()) {
             existTeam.setName(team.getName());
         }
         if (team.getCountry() != null && !team.getCountry().isBlank()) {
             existTeam.setCountry(team.getCountry());
         }
+        existTeam.revise();
 
         Team updatedTeam = teamRepository.save(existTeam);
-        return mapper.getTeamDtoFromEntity(updatedTeam, teamPair.getMarketValue());
+        return mapper.getTeamDtoFromEntity(updatedTeam, true, false, false);
     }
 
     @Override
@@ -120,8 +157,51 @@ public class TeamServiceImpl implements TeamService {
     public boolean delete(long id) throws ApplicationException {
         Team existTeam = teamRepository.findById(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
+        // The players and listings go in bulk, cascading would load and delete them one by one
+        transferRepository.deleteAllByTeamId(id);
+        playerRepository.deleteAllByTeamId(id);
+        squadCache.evict(id);
         teamRepository.delete(existTeam);
         //return mapper.getTeamDtoFromEntity(existTeam, false, false,false);
         return true;
     }
+
+    // Safety net for the incremental updates: finds teams whose market value drifted and recomputes it
+    @Override
+    @Scheduled(initialDelayString = "${team.market-value.reconcile-initial-delay:60000}",
+            fixedDelayString = "${team.market-value.reconcile-delay:3600000}")
+    @Transactional
+    public int reconcileMarketValues() {
+        List<Long> driftedTeamIds = teamRepository.findIdsWithMarketValueDrift();
+        if (driftedTeamIds.isEmpty()) {
+            return 0;
+        }
+        log.warn("Market value drifted for teams " + driftedTeamIds);
+        return teamRepository.recomputeMarketValue(driftedTeamIds);
+    }
+
+    private PagingDataRespDto<TeamDto> getAllAfter(PagingDataReqDto pageRequest) throws ApplicationException {
+        PageCursor cursor = PageCursor.decode(pageRequest.getAfter());
+        PageRequest slice = PageRequest.of(0, pageRequest.getPageSize(), Sort.Direction.ASC, "name", "id");
+
+        Slice<Team> teamSlice = null;
+        try {
+            teamSlice = cursor == null
+                    ? teamRepository.findSliceBy(slice)
+                    : teamRepository.findSliceAfter(cursor.getKey(), cursor.getId(), slice);
+        } catch (Exception ex) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, ex.getMessage());
+        }
+
+        List<Team> teams = teamSlice.getContent();
+        String next = null;
+        if (teamSlice.hasNext()) {
+            Team last = teams.get(teams.size() - 1);
+            next = new PageCursor(last.getName(), last.getId()).encode();
+        }
+        return new PagingDataRespDto<>(
+                teams.stream().map(t -> mapper.getTeamDtoFromEntity(t, false, false, false)).collect(Collectors.toList()),
+                next
+        );
+    }
 }
@@ -0,0 +1,131 @@
+package com.toptal.soccermanager.service.impl;
+
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.AuthDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.model.entity.RefreshToken;
+import com.toptal.soccermanager.model.entity.Status;
+import com.toptal.soccermanager.model.entity.User;
+import com.toptal.soccermanager.repository.RefreshTokenRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import com.toptal.soccermanager.service.TokenService;
+import com.toptal.soccermanager.utils.Mapper;
+import com.toptal.soccermanager.utils.TokenDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Short-lived access tokens, renewed with refresh tokens instead of the password.
+ * A refresh token is a random value only stored as its SHA-256, it is exchanged once for the next one of its family.
+ * Presenting an exchanged token again means it leaked, the whole family is revoked.
+ */
+
+@Service
+@Slf4j
+public class TokenServiceImpl implements TokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.expiration}")
+    private int jwtExpirationInSeconds;
+
+    @Value("${jwt.refresh-expiration:1209600}")
+    private long refreshExpirationInSeconds;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private Mapper mapper;
+
+    // Starts a new family, on login
+    @Override
+    @Transactional
+    public AuthDto issue(UserDto user) {
+        return issue(user, userRepository.getReferenceById(user.getId()), UUID.randomUUID().toString());
+    }
+
+    // ApplicationException is checked and leaves the transaction to commit, so revocations stay when the refresh fails
+    @Override
+    @Transactional
+    public AuthDto refresh(String refreshToken) throws ApplicationException {
+        RefreshToken existToken = refreshTokenRepository.findByTokenHashWithUser(TokenDigest.sha256(refreshToken))
+                .orElseThrow(() -> new ApplicationException(ApplicationError.REFRESH_TOKEN_INVALID));
+        if (existToken.isRevoked() || existToken.getExpiresAt().isBefore(Instant.now())) {
+            throw new ApplicationException(ApplicationError.REFRESH_TOKEN_INVALID);
+        }
+
+        // Already exchanged, or by a concurrent request: only one of them gets the next token
+        if (existToken.isUsed() || refreshTokenRepository.markUsed(existToken.getId()) == 0) {
+            log.warn("Refresh token reused, revoking family {}", existToken.getFamily());
+            refreshTokenRepository.revokeFamily(existToken.getFamily());
+            throw new ApplicationException(ApplicationError.REFRESH_TOKEN_INVALID);
+        }
+
+        User user = existToken.getUser();
+        if (user.getStatus() == Status.BLOCKED) {
+            refreshTokenRepository.revokeFamily(existToken.getFamily());
+            throw new ApplicationException(ApplicationError.USER_BLOCKED);
+        }
+
+        // The access token carries the current role and status, not those of the login
+        return issue(mapper.getUserDtoFromEntity(user), user, existToken.getFamily());
+    }
+
+    // Logout, the family of the token can not be refreshed anymore. Unknown tokens are ignored
+    @Override
+    @Transactional
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHashWithUser(TokenDigest.sha256(refreshToken))
+                .ifPresent(existToken -> refreshTokenRepository.revokeFamily(existToken.getFamily()));
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${jwt.refresh-purge-delay:3600000}",
+            fixedDelayString = "${jwt.refresh-purge-delay:3600000}")
+    @Transactional
+    public int purgeExpired() {
+        return refreshTokenRepository.deleteAllExpiredBefore(Instant.now());
+    }
+
+    private AuthDto issue(UserDto userDto, User user, String family) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken newToken = new RefreshToken();
+        // The token is random and long enough, a fast unsalted hash keeps the lookup by hash possible
+        newToken.setTokenHash(TokenDigest.sha256(refreshToken));
+        newToken.setFamily(family);
+        newToken.setUser(user);
+        newToken.setExpiresAt(Instant.now().plusSeconds(refreshExpirationInSeconds));
+        refreshTokenRepository.save(newToken);
+
+        return new AuthDto(userDto.getId(), userDto.getId(), jwtUtils.getJwtToken(userDto),
+                jwtExpirationInSeconds, refreshToken);
+    }
+}
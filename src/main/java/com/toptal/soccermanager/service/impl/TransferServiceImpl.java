@@ -3,23 +3,35 @@ package com.toptal.soccermanager.service.impl;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Player;
+import com.toptal.soccermanager.model.entity.Position;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.model.entity.Transfer;
 import com.toptal.soccermanager.repository.PlayerRepository;
 import com.toptal.soccermanager.repository.TeamRepository;
 import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.TransferSpecifications;
 import com.toptal.soccermanager.service.TransferService;
 import com.toptal.soccermanager.utils.Creator;
+import com.toptal.soccermanager.utils.ETags;
+import com.toptal.soccermanager.utils.EntityStreams;
 import com.toptal.soccermanager.utils.Mapper;
+import com.toptal.soccermanager.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -40,6 +52,9 @@ public class TransferServiceImpl implements TransferService {
     @Autowired
     private Mapper mapper;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Override
     @Transactional
     public TransferDto create(TransferCreateDto transfer, Long teamId) throws ApplicationException {
@@ -56,15 +71,18 @@ public class TransferServiceImpl implements TransferService {
         }
 
         Transfer newTransfer = new Transfer();
-        newTransfer.setAskPrice(transfer.getAskPrice());
+        newTransfer.setAskPrice(Money.of(transfer.getAskPrice()));
         newTransfer.setPlayer(existPlayer);
+        if (existPlayer.getTeam() != null) {
+            existPlayer.getTeam().revise();
+        }
         Transfer createdTransfer = transferRepository.save(newTransfer);
 
         return mapper.getTransferDtoFromEntity(createdTransfer, true);
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public TransferDto getById(long id) throws ApplicationException {
         Transfer existTransfer = transferRepository.findByIdWithPlayers(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TRANSFER_NOT_FOUND));
@@ -72,15 +90,27 @@ public class TransferServiceImpl implements TransferService {
         return mapper.getTransferDtoFromEntity(existTransfer, true);
     }
 
+    // Revision of the team of the listed player
     @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getRevision(long id) {
+        return transferRepository.findTeamRevisionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public PagingDataRespDto<TransferDto> getAll(PagingDataReqDto pageRequest) throws ApplicationException {
+        if (pageRequest.getAfter() != null) {
+            return getAllAfter(pageRequest);
+        }
+
         int pageSize = pageRequest.getPageSize();
         int pageNumber = pageRequest.getPageNumber();
 
         Page<Transfer> transferPage = null;
         try {
             transferPage = transferRepository.findAllWithPlayers(
-                    PageRequest.of(pageNumber, pageSize, Sort.Direction.ASC, "askPrice")
+                    PageRequest.of(pageNumber, pageSize, Sort.Direction.ASC, "askPrice", "id")
             );
         } catch (Exception ex) {
             throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, ex.getMessage());
@@ -94,24 +124,82 @@ public class TransferServiceImpl implements TransferService {
         );
     }
 
+    // Revision of a page of getAll, read without loading the listings
     @Override
-    @Transactional
-    public List<TransferDto> getAll() {
-        List<Transfer> existTransfers = transferRepository.findAllWithPlayers();
-        return existTransfers.stream().map(t -> mapper.getTransferDtoFromEntity(t, true)).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public long getPageRevision(PagingDataReqDto pageRequest) {
+        Page<TransferRepository.ListingRevision> revisionPage = transferRepository.findAllRevisions(
+                PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), Sort.Direction.ASC, "askPrice", "id")
+        );
+
+        List<Long> transferIds = new ArrayList<>();
+        List<Long> teamRevisions = new ArrayList<>();
+        revisionPage.forEach(r -> {
+            transferIds.add(r.getTransferId());
+            teamRevisions.add(r.getTeamRevision());
+        });
+        return ETags.transferPageRevision(revisionPage.getTotalElements(), transferIds, teamRevisions);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PagingDataRespDto<TransferDto> search(TransferFilterDto filter, PagingDataReqDto pageRequest) throws ApplicationException {
+        Money minAskPrice = toMoney(filter.getMinAskPrice());
+        Money maxAskPrice = toMoney(filter.getMaxAskPrice());
+        Money minMarketValue = toMoney(filter.getMinMarketValue());
+        Money maxMarketValue = toMoney(filter.getMaxMarketValue());
+        if (minAskPrice != null && maxAskPrice != null && maxAskPrice.isLessThan(minAskPrice)
+                || minMarketValue != null && maxMarketValue != null && maxMarketValue.isLessThan(minMarketValue)) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, "Minimum is greater than maximum");
+        }
+
+        String position = trimToNull(filter.getPosition());
+        Specification<Transfer> specification = Specification.where(TransferSpecifications.withPlayers())
+                .and(TransferSpecifications.playerCountry(trimToNull(filter.getCountry())))
+                .and(TransferSpecifications.playerPosition(position == null ? null
+                        : Position.valueOf(position.substring(0, 1).toUpperCase() + position.substring(1).toLowerCase())))
+                .and(TransferSpecifications.teamNameStartsWith(trimToNull(filter.getTeamName())))
+                .and(TransferSpecifications.playerNameStartsWith(trimToNull(filter.getPlayerName())))
+                .and(TransferSpecifications.askPriceBetween(minAskPrice, maxAskPrice))
+                .and(TransferSpecifications.marketValueBetween(minMarketValue, maxMarketValue));
+
+        Page<Transfer> transferPage = null;
+        try {
+            transferPage = transferRepository.findAll(specification,
+                    PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), Sort.Direction.ASC, "askPrice", "id")
+            );
+        } catch (Exception ex) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, ex.getMessage());
+        }
+
+        return new PagingDataRespDto<>(
+                transferPage.getTotalElements(),
+                transferPage.getTotalPages(),
+                transferPage.get().map(t -> mapper.getTransferDtoFromEntity(t, true))
+                        .collect(Collectors.toList())
+        );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<TransferDto> consumer) {
+        EntityStreams.forEach(transferRepository.streamAllWithPlayers(), entityManager,
+                t -> mapper.getTransferDtoFromEntity(t, true), consumer);
     }
 
     @Override
     @Transactional
     public TransferDto update(long id, TransferUpdateDto transfer, Long teamId) throws ApplicationException {
-        Transfer existTransfer = transferRepository.findByIdWithPlayers(id)
+        // Locked like a purchase, the price can't change while somebody is buying the player
+        Transfer existTransfer = transferRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TRANSFER_NOT_FOUND));
 
         if (teamId != null && existTransfer.getPlayer().getTeam().getId() != teamId) {
             throw new ApplicationException(ApplicationError.UNAUTHORIZED_USER_ERROR);
         }
 
-        existTransfer.setAskPrice(transfer.getAskPrice());
+        existTransfer.setAskPrice(Money.of(transfer.getAskPrice()));
+        existTransfer.getPlayer().getTeam().revise();
 
         Transfer savedTransfer = transferRepository.save(existTransfer);
         return mapper.getTransferDtoFromEntity(savedTransfer, true);
@@ -120,28 +208,42 @@ public class TransferServiceImpl implements TransferService {
     @Override
     @Transactional
     public boolean delete(long id, Long teamId) throws ApplicationException {
-        Transfer existTransfer = transferRepository.findByIdWithPlayers(id)
+        // The listing is locked first, concurrent buyers of the same player wait here and then find it gone
+        Transfer existTransfer = transferRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.TRANSFER_NOT_FOUND));
 
         Player transferredPlayer = existTransfer.getPlayer();
-        if (teamId != null && existTransfer.getPlayer().getTeam().getId() != teamId) {
-            Team toTeam = teamRepository.findById(teamId)
-                    .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
+        long fromTeamId = transferredPlayer.getTeam().getId();
+        if (teamId != null && fromTeamId != teamId) {
+            // Both teams are locked in ascending id order, so two purchases never wait for each other in a cycle
+            Team toTeam;
+            Team fromTeam;
+            if (teamId < fromTeamId) {
+                toTeam = lockTeam(teamId);
+                fromTeam = lockTeam(fromTeamId);
+            } else {
+                fromTeam = lockTeam(fromTeamId);
+                toTeam = lockTeam(teamId);
+            }
 
-            double toTeamBudget = toTeam.getBudget();
-            if (toTeamBudget < existTransfer.getAskPrice()) {
+            Money askPrice = existTransfer.getAskPrice();
+            if (toTeam.getBudget().isLessThan(askPrice)) {
                 throw new ApplicationException(ApplicationError.TEAM_INSUFFICIENT_BUDGET);
             }
             // to team budget decreases
-            toTeam.setBudget(toTeamBudget - existTransfer.getAskPrice());
+            toTeam.setBudget(toTeam.getBudget().minus(askPrice));
 
             // from team budget increases
-            Team fromTeam = transferredPlayer.getTeam();
-            double fromTeamBudget = fromTeam.getBudget();
-            fromTeam.setBudget(fromTeamBudget + existTransfer.getAskPrice());
+            fromTeam.setBudget(fromTeam.getBudget().plus(askPrice));
 
+            // the player leaves with his old value and joins with the new one
+            fromTeam.setMarketValue(fromTeam.getMarketValue().minus(transferredPlayer.getMarketValue()));
             transferredPlayer.setMarketValue(creator.createMarketValue(transferredPlayer.getMarketValue()));
+            // Only the owning side changes, hibernate.cache.auto_evict_collection_cache evicts the cached squads of both teams
             transferredPlayer.setTeam(toTeam);
+            toTeam.setMarketValue(toTeam.getMarketValue().plus(transferredPlayer.getMarketValue()));
+            fromTeam.revise();
+            toTeam.revise();
 
             //toTeam.addPlayer(transferredPlayer);
             //fromTeam.removePlayer(transferredPlayer);
@@ -149,6 +251,8 @@ public class TransferServiceImpl implements TransferService {
             teamRepository.save(fromTeam);
             teamRepository.save(toTeam);
             playerRepository.save(transferredPlayer);
+        } else {
+            transferredPlayer.getTeam().revise();
         }
         transferredPlayer.setTransfer(null);
         transferRepository.delete(existTransfer);
@@ -156,4 +260,42 @@ public class TransferServiceImpl implements TransferService {
         //return mapper.getPlayerDtoFromEntity(transferredPlayer, true, true);
         return true;
     }
+
+    private Team lockTeam(long id) throws ApplicationException {
+        return teamRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ApplicationException(ApplicationError.TEAM_NOT_FOUND));
+    }
+
+    private PagingDataRespDto<TransferDto> getAllAfter(PagingDataReqDto pageRequest) throws ApplicationException {
+        PageCursor cursor = PageCursor.decode(pageRequest.getAfter());
+        PageRequest slice = PageRequest.of(0, pageRequest.getPageSize(), Sort.Direction.ASC, "askPrice", "id");
+
+        Slice<Transfer> transferSlice = null;
+        try {
+            transferSlice = cursor == null
+                    ? transferRepository.findSliceWithPlayers(slice)
+                    : transferRepository.findSliceWithPlayersAfter(Money.ofCents(Long.parseLong(cursor.getKey())), cursor.getId(), slice);
+        } catch (Exception ex) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, ex.getMessage());
+        }
+
+        List<Transfer> transfers = transferSlice.getContent();
+        String next = null;
+        if (transferSlice.hasNext()) {
+            Transfer last = transfers.get(transfers.size() - 1);
+            next = new PageCursor(String.valueOf(last.getAskPrice().getCents()), last.getId()).encode();
+        }
+        return new PagingDataRespDto<>(
+                transfers.stream().map(t -> mapper.getTransferDtoFromEntity(t, true)).collect(Collectors.toList()),
+                next
+        );
+    }
+
+    private static Money toMoney(Double amount) {
+        return amount != null ? Money.of(amount) : null;
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
 }
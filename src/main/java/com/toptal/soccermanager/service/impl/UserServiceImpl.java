@@ -1,5 +1,10 @@
 package com.toptal.soccermanager.service.impl;
 
+import com.toptal.soccermanager.configuration.authentication.LoginThrottle;
+import com.toptal.soccermanager.configuration.authentication.PasswordChecker;
+import com.toptal.soccermanager.configuration.authentication.PasswordChecker.PasswordCheck;
+import com.toptal.soccermanager.configuration.authentication.PrincipalCache;
+import com.toptal.soccermanager.configuration.cache.SquadCache;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
@@ -7,29 +12,47 @@ import com.toptal.soccermanager.model.entity.Role;
 import com.toptal.soccermanager.model.entity.Status;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.model.entity.User;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
 import com.toptal.soccermanager.repository.UserRepository;
+import com.toptal.soccermanager.service.TokenService;
 import com.toptal.soccermanager.service.UserService;
 import com.toptal.soccermanager.utils.Creator;
+import com.toptal.soccermanager.utils.EntityStreams;
 import com.toptal.soccermanager.utils.Mapper;
+import com.toptal.soccermanager.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.transaction.Transactional;
-import java.util.List;
-import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
     private static final int MAX_LOGIN_ATTEMPTS = 3;
+    private static final int SIGNUP_FLUSH_INTERVAL = 20;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -39,46 +62,85 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private Mapper mapper;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private SquadCache squadCache;
+
+    @Autowired
+    private PasswordChecker passwordChecker;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Like login, the password is hashed outside any transaction, no connection is held meanwhile
     @Override
-    @Transactional
     public UserDto create(UserCreateDto user) throws ApplicationException {
         Optional<User> optionalUser = userRepository.findOneByEmail(user.getEmail());
         if (optionalUser.isPresent()) {
             throw new ApplicationException(ApplicationError.USER_DUPLICATED);
         }
 
-        User newUser = new User();
-        newUser.setEmail(user.getEmail());
-        newUser.setPassword(passwordEncoder.encode(user.getPassword()));
-        newUser.setFullName(user.getFullName());
-        newUser.setRole(Role.valueOf(user.getRole().toUpperCase()));
-        newUser.setStatus((Status.ACTIVE));
-        newUser.setLoginAttempts(0);
-        Team createdTeam = creator.createTeam();
-        newUser.setTeam(createdTeam);
-        createdTeam.setUser(newUser);
+        String encodedPassword = passwordEncoder.encode(user.getPassword());
+        return transactionTemplate.execute(status -> {
+            User savedUser = userRepository.save(newUserWithTeam(user, encodedPassword));
+            return mapper.getUserDtoFromEntity(savedUser);
+        });
+    }
 
-        User savedUser = userRepository.save(newUser);
-        return mapper.getUserDtoFromEntity(savedUser);
+    // The hashes of a batch take far longer than its inserts, they are all computed before the transaction starts,
+    // on the pool of the login password checks
+    @Override
+    public List<UserDto> createAll(List<UserCreateDto> users) throws ApplicationException {
+        Set<String> emails = new HashSet<>();
+        for (UserCreateDto user : users) {
+            if (!emails.add(user.getEmail())) {
+                throw new ApplicationException(ApplicationError.USER_DUPLICATED, user.getEmail());
+            }
+        }
+        List<User> existUsers = userRepository.findAllByEmailIn(emails);
+        if (!existUsers.isEmpty()) {
+            throw new ApplicationException(ApplicationError.USER_DUPLICATED, existUsers.get(0).getEmail());
+        }
+
+        List<String> encodedPasswords = passwordChecker.encodeAll(users.stream()
+                .map(UserCreateDto::getPassword)
+                .collect(Collectors.toList()));
+        return transactionTemplate.execute(status -> saveAll(users, encodedPasswords));
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDto getById(long id) throws ApplicationException {
-        User existUser = userRepository.findById(id)
+        User existUser = userRepository.findByIdWithTeam(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.USER_NOT_FOUND));
 
         return mapper.getUserDtoFromEntity(existUser);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PagingDataRespDto<UserDto> getAll(PagingDataReqDto pageRequest) throws ApplicationException {
+        if (pageRequest.getAfter() != null) {
+            return getAllAfter(pageRequest);
+        }
+
         int pageSize = pageRequest.getPageSize();
         int pageNumber = pageRequest.getPageNumber();
 
         Page<User> userPage = null;
         try {
-            userPage = userRepository.findAll(
+            userPage = userRepository.findAllWithTeam(
                     PageRequest.of(pageNumber, pageSize, Sort.Direction.ASC, "email")
             );
         } catch (Exception ex) {
@@ -93,61 +155,83 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional
-    public List<UserDto> getAll() {
-        List<User> existUsers = userRepository.findAll();
-
-        return existUsers.stream().map(mapper::getUserDtoFromEntity).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<UserDto> consumer) {
+        EntityStreams.forEach(userRepository.streamAll(), entityManager, mapper::getUserDtoFromEntity, consumer);
     }
 
     @Override
     @Transactional
     public UserDto update(long id, UserUpdateDto user) throws ApplicationException {
-        User existUser = userRepository.findById(id)
+        User existUser = userRepository.findByIdWithTeam(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.USER_NOT_FOUND));
 
+        boolean principalChanged = false;
+        boolean revokeTokens = false;
         if (user.getEmail() != null && !user.getEmail().isBlank() && !user.getEmail().equals(existUser.getEmail())) {
             if (userRepository.findOneByEmail(user.getEmail()).isPresent()) {
                 throw new ApplicationException(ApplicationError.USER_DUPLICATED);
             }
             existUser.setEmail(user.getEmail());
+            principalChanged = true;
         }
         if (user.getPassword() != null && !user.getPassword().isBlank()) {
             existUser.setPassword(passwordEncoder.encode(user.getPassword()));
+            revokeTokens = true;
         }
         if (user.getFullName() != null && !user.getFullName().isBlank()) {
             existUser.setFullName(user.getFullName());
         }
         if (user.getRole() != null) {
-            existUser.setRole(Role.valueOf(user.getRole().toUpperCase()));
+            Role role = Role.valueOf(user.getRole().toUpperCase());
+            principalChanged |= role != existUser.getRole();
+            existUser.setRole(role);
         }
 
         if (user.getStatus() != null) {
             Status status = Status.valueOf(user.getStatus().toUpperCase());
             if (status == Status.ACTIVE) {
                 existUser.setLoginAttempts(0);
+                loginThrottle.reset(existUser.getEmail());
             }
+            principalChanged |= status != existUser.getStatus();
+            revokeTokens |= status == Status.BLOCKED;
             existUser.setStatus(status);
         }
 
         User updatedUser = userRepository.save(existUser);
+        if (principalChanged) {
+            principalCache.invalidate(id);
+        }
+        // Sessions end with their access token, a new one needs the new password
+        if (revokeTokens) {
+            tokenService.revokeAll(id);
+        }
         return mapper.getUserDtoFromEntity(updatedUser);
     }
 
     @Override
     @Transactional
     public boolean delete(long id) throws ApplicationException {
-        User deletedUser = userRepository.findById(id)
+        User deletedUser = userRepository.findByIdWithTeam(id)
                 .orElseThrow(() -> new ApplicationException(ApplicationError.USER_NOT_FOUND));
 
+        // The players and listings of the team go in bulk, cascading would load and delete them one by one
+        transferRepository.deleteAllByTeamId(id);
+        playerRepository.deleteAllByTeamId(id);
+        squadCache.evict(id);
         userRepository.delete(deletedUser);
+        principalCache.invalidate(id);
         //return mapper.getUserDtoFromEntity(deletedUser);
         return true;
     }
 
     @Override
-    @Transactional
-    public UserDto login(CredentialDto credential) throws ApplicationException {
+    public CompletableFuture<UserDto> login(CredentialDto credential, String clientAddress) throws ApplicationException {
+        // Refused before any query or password check once the email or the address made too many attempts
+        LoginThrottle.Attempt attempt = loginThrottle.acquire(credential.getEmail(), clientAddress, MAX_LOGIN_ATTEMPTS);
+
+        // The lookup and the write-back are short transactions of their own, no connection is held during the password check
         User user = userRepository.findOneByEmail(credential.getEmail())
                 .orElseThrow(() -> new ApplicationException(ApplicationError.USER_CREDENTIALS_INVALID));
 
@@ -155,20 +239,98 @@ public class UserServiceImpl implements UserService {
             throw new ApplicationException(ApplicationError.USER_BLOCKED);
         }
 
-        if (!passwordEncoder.matches(credential.getPassword(), user.getPassword())) {
-            int loginAttempts = user.getLoginAttempts();
-            if (loginAttempts >= MAX_LOGIN_ATTEMPTS - 1) {
-                user.setStatus(Status.BLOCKED);
-                user.setLoginAttempts(0);
-            } else {
-                user.setLoginAttempts(loginAttempts + 1);
+        CompletableFuture<PasswordCheck> check;
+        try {
+            check = passwordChecker.check(credential.getPassword(), user.getPassword());
+        } catch (ApplicationException ex) {
+            attempt.cancelled();
+            throw ex;
+        }
+        return check.thenApply(passwordCheck -> {
+            try {
+                return completeLogin(user, passwordCheck, attempt);
+            } catch (ApplicationException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    private List<UserDto> saveAll(List<UserCreateDto> users, List<String> encodedPasswords) {
+        List<UserDto> createdUsers = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            User savedUser = userRepository.save(newUserWithTeam(users.get(i), encodedPasswords.get(i)));
+            createdUsers.add(mapper.getUserDtoFromEntity(savedUser));
+            // Each user comes with a team of generated players, they are sent in batches and let go
+            if (createdUsers.size() % SIGNUP_FLUSH_INTERVAL == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        return createdUsers;
+    }
+
+    private User newUserWithTeam(UserCreateDto user, String encodedPassword) {
+        User newUser = new User();
+        newUser.setEmail(user.getEmail());
+        newUser.setPassword(encodedPassword);
+        newUser.setFullName(user.getFullName());
+        newUser.setRole(Role.valueOf(user.getRole().toUpperCase()));
+        newUser.setStatus((Status.ACTIVE));
+        newUser.setLoginAttempts(0);
+        Team createdTeam = creator.createTeam();
+        newUser.setTeam(createdTeam);
+        createdTeam.setUser(newUser);
+        return newUser;
+    }
+
+    private UserDto completeLogin(User user, PasswordCheck check, LoginThrottle.Attempt attempt) throws ApplicationException {
+        if (!check.isMatches()) {
+            // Failed attempts are only counted in memory, the one reaching the limit blocks the user
+            int attempts = attempt.getEmailAttempts();
+            if (attempts >= MAX_LOGIN_ATTEMPTS) {
+                userRepository.updateStatus(user.getId(), Status.BLOCKED);
+                principalCache.invalidate(user.getId());
+                tokenService.revokeAll(user.getId());
             }
             throw new ApplicationException(ApplicationError.USER_CREDENTIALS_INVALID,
-                    String.format("Remaining login attempts: %d", MAX_LOGIN_ATTEMPTS - loginAttempts - 1));
+                    String.format("Remaining login attempts: %d", Math.max(MAX_LOGIN_ATTEMPTS - attempts, 0)));
         }
 
-        user.setLoginAttempts(0);
+        attempt.succeeded();
+        // Left over from when failed attempts were counted in the database
+        if (user.getLoginAttempts() != 0) {
+            userRepository.resetLoginAttempts(user.getId());
+            user.setLoginAttempts(0);
+        }
+        if (check.getUpgradedPassword() != null) {
+            userRepository.upgradePassword(user.getId(), user.getPassword(), check.getUpgradedPassword());
+        }
 
         return mapper.getUserDtoFromEntity(user);
     }
+
+    private PagingDataRespDto<UserDto> getAllAfter(PagingDataReqDto pageRequest) throws ApplicationException {
+        PageCursor cursor = PageCursor.decode(pageRequest.getAfter());
+        PageRequest slice = PageRequest.of(0, pageRequest.getPageSize(), Sort.Direction.ASC, "email", "id");
+
+        Slice<User> userSlice = null;
+        try {
+            userSlice = cursor == null
+                    ? userRepository.findSliceBy(slice)
+                    : userRepository.findSliceAfter(cursor.getKey(), cursor.getId(), slice);
+        } catch (Exception ex) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, ex.getMessage());
+        }
+
+        List<User> users = userSlice.getContent();
+        String next = null;
+        if (userSlice.hasNext()) {
+            User last = users.get(users.size() - 1);
+            next = new PageCursor(last.getEmail(), last.getId()).encode();
+        }
+        return new PagingDataRespDto<>(
+                users.stream().map(mapper::getUserDtoFromEntity).collect(Collectors.toList()),
+                next
+        );
+    }
 }
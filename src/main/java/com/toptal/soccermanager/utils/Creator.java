@@ -1,78 +1,177 @@
 package com.toptal.soccermanager.utils;
 
 import com.github.javafaker.Faker;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Player;
 import com.toptal.soccermanager.model.entity.Position;
 import com.toptal.soccermanager.model.entity.Team;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates the initial team of a new user.
+ * Generating fake names is slow, so team templates are generated ahead of time by a background
+ * thread into a bounded pool. Signup only takes one from the pool and generates it inline on a miss.
+ * The pool depth and the misses are exported as soccermanager.creator.team.pool.depth and .misses.
+ */
+
+@Slf4j
 @Component
-public class Creator {
+public class Creator implements MeterBinder {
     private static final int AGE_MIN = 18;
     private static final int AGE_MAX = 40;
-    private static final int PLAYER_INITIAL_MARKET_VALUE = 1000000;
-    private static final int TEAM_INITIAL_BUDGET = 5000000;
+    private static final Money PLAYER_INITIAL_MARKET_VALUE = Money.of(1000000);
+    private static final Money TEAM_INITIAL_BUDGET = Money.of(5000000);
     private static final int TEAM_INITIAL_NUMBER_OF_GOALKEEPERS = 3;
     private static final int TEAM_INITIAL_NUMBER_OF_DEFENDERS = 6;
     private static final int TEAM_INITIAL_NUMBER_OF_MIDFIELDERS = 6;
     private static final int TEAM_INITIAL_NUMBER_OF_ATTACKERS = 5;
 
+    @Value("${creator.team-pool.size:200}")
+    private int poolSize;
+
     private final Faker faker = new Faker();
+    private final AtomicLong poolMisses = new AtomicLong();
+    private BlockingQueue<TeamTemplate> pool;
+    private Thread refillThread;
+
+    @PostConstruct
+    public void startPool() {
+        if (poolSize <= 0) {
+            return;
+        }
+        pool = new ArrayBlockingQueue<>(poolSize);
+        refillThread = new Thread(this::refillPool, "team-template-refill");
+        refillThread.setDaemon(true);
+        refillThread.start();
+    }
 
+    @PreDestroy
+    public void stopPool() {
+        if (refillThread != null) {
+            refillThread.interrupt();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("soccermanager.creator.team.pool.depth", this, Creator::getPoolDepth)
+                .description("Team templates ready for signups")
+                .register(registry);
+        FunctionCounter.builder("soccermanager.creator.team.pool.misses", this, Creator::getPoolMisses)
+                .description("Signups that generated their team inline")
+                .register(registry);
+    }
 
     public Team createTeam() {
-        Team team = new Team();
-        team.setName(faker.team().name());
-        team.setCountry(faker.country().name());
-        team.setBudget(TEAM_INITIAL_BUDGET);
+        TeamTemplate template = pool != null ? pool.poll() : null;
+        if (template == null) {
+            poolMisses.incrementAndGet();
+            template = createTemplate();
+        }
+        return template.toTeam();
+    }
+
+    public Money createMarketValue(Money baseValue) {
+        return baseValue.plusPercent(ThreadLocalRandom.current().nextInt(10, 100));
+    }
+
+    public int getPoolDepth() {
+        return pool != null ? pool.size() : 0;
+    }
+
+    public long getPoolMisses() {
+        return poolMisses.get();
+    }
+
+    private void refillPool() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Blocks while the pool is full
+                pool.put(createTemplate());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.error("Team template pool refill stopped, teams are created on signup from now on", ex);
+        }
+    }
+
+    private TeamTemplate createTemplate() {
+        List<PlayerTemplate> players = new ArrayList<>();
         // add initial goalkeepers
         for (int i = 0; i < TEAM_INITIAL_NUMBER_OF_GOALKEEPERS; i++) {
-            team.addPlayer(createGoalKeeper());
+            players.add(createPlayer(Position.Goalkeeper));
         }
         // add initial defenders
         for (int i = 0; i < TEAM_INITIAL_NUMBER_OF_DEFENDERS; i++) {
-            team.addPlayer(createDefender());
+            players.add(createPlayer(Position.Defender));
         }
         // add initial midfielders
         for (int i = 0; i < TEAM_INITIAL_NUMBER_OF_MIDFIELDERS; i++) {
-            team.addPlayer(createMidfielder());
+            players.add(createPlayer(Position.Midfielder));
         }
         // add initial attackers
         for (int i = 0; i < TEAM_INITIAL_NUMBER_OF_ATTACKERS; i++) {
-            team.addPlayer(createAttacker());
+            players.add(createPlayer(Position.Attacker));
         }
-        return team;
+        return new TeamTemplate(faker.team().name(), faker.country().name(), players);
     }
 
-    public double createMarketValue(double baseValue) {
-        return baseValue + baseValue * faker.number().numberBetween(10, 100) / 100;
+    private PlayerTemplate createPlayer(Position position) {
+        return new PlayerTemplate(faker.name().firstName(), faker.name().lastName(), faker.country().name(),
+                faker.number().numberBetween(AGE_MIN, AGE_MAX), position);
     }
 
-    private Player createGoalKeeper() {
-        return createPlayer(Position.Goalkeeper);
-    }
-
-    private Player createDefender() {
-        return createPlayer(Position.Defender);
-    }
+    // Pooled values are immutable, entities are only built once a template is taken
+    @AllArgsConstructor
+    private static class TeamTemplate {
+        private final String name;
+        private final String country;
+        private final List<PlayerTemplate> players;
 
-    private Player createMidfielder() {
-        return createPlayer(Position.Midfielder);
-    }
-
-    private Player createAttacker() {
-        return createPlayer(Position.Attacker);
+        Team toTeam() {
+            Team team = new Team();
+            team.setName(name);
+            team.setCountry(country);
+            team.setBudget(TEAM_INITIAL_BUDGET);
+            players.forEach(p -> team.addPlayer(p.toPlayer()));
+            return team;
+        }
     }
 
-    private Player createPlayer(Position position) {
-        Player player = new Player();
-        player.setFirstName(faker.name().firstName());
-        player.setLastName(faker.name().lastName());
-        player.setCountry(faker.country().name());
-        player.setAge(faker.number().numberBetween(AGE_MIN, AGE_MAX));
-        player.setMarketValue(PLAYER_INITIAL_MARKET_VALUE);
-        player.setPosition(position);
+    @AllArgsConstructor
+    private static class PlayerTemplate {
+        private final String firstName;
+        private final String lastName;
+        private final String country;
+        private final int age;
+        private final Position position;
 
-        return player;
+        Player toPlayer() {
+            Player player = new Player();
+            player.setFirstName(firstName);
+            player.setLastName(lastName);
+            player.setCountry(country);
+            player.setAge(age);
+            player.setMarketValue(PLAYER_INITIAL_MARKET_VALUE);
+            player.setPosition(position);
+            return player;
+        }
     }
 }
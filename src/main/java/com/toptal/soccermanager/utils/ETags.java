@@ -0,0 +1,126 @@
+package com.toptal.soccermanager.utils;
+
+import com.toptal.soccermanager.model.dto.PagingDataRespDto;
+import com.toptal.soccermanager.model.dto.PlayerDto;
+import com.toptal.soccermanager.model.dto.TeamDto;
+import com.toptal.soccermanager.model.dto.TransferDto;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Strong entity tags of teams, players and listings, built from the revision of the team they belong to.
+ * A conditional GET compares them with a revision read on its own, without loading the resource.
+ */
+
+public final class ETags {
+    // Kept by the client only, and revalidated before every use
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ETags() {
+    }
+
+    public static String team(long id, long revision, boolean withPlayers) {
+        return tag("team-" + id + "-" + Long.toHexString(revision) + (withPlayers ? "-players" : ""));
+    }
+
+    public static String team(TeamDto team, boolean withPlayers) {
+        return team(team.getId(), team.getRevision(), withPlayers);
+    }
+
+    public static String player(long id, long teamRevision) {
+        return tag("player-" + id + "-" + Long.toHexString(teamRevision));
+    }
+
+    public static String player(PlayerDto player) {
+        return player.getTeam() != null ? player(player.getId(), player.getTeam().getRevision()) : null;
+    }
+
+    public static String transfer(long id, long teamRevision) {
+        return tag("transfer-" + id + "-" + Long.toHexString(teamRevision));
+    }
+
+    public static String transfer(TransferDto transfer) {
+        TeamDto team = transfer.getPlayer() != null ? transfer.getPlayer().getTeam() : null;
+        return team != null ? transfer(transfer.getId(), team.getRevision()) : null;
+    }
+
+    public static String transferPage(long revision) {
+        return tag("transfers-" + Long.toHexString(revision));
+    }
+
+    public static String transferPage(PagingDataRespDto<TransferDto> page) {
+        if (page.getTotalElements() == null || page.getData() == null) {
+            return null;
+        }
+        List<Long> transferIds = new ArrayList<>();
+        List<Long> teamRevisions = new ArrayList<>();
+        for (TransferDto transfer : page.getData()) {
+            if (transfer.getPlayer() == null || transfer.getPlayer().getTeam() == null) {
+                return null;
+            }
+            transferIds.add(transfer.getId());
+            teamRevisions.add(transfer.getPlayer().getTeam().getRevision());
+        }
+        return transferPage(transferPageRevision(page.getTotalElements(), transferIds, teamRevisions));
+    }
+
+    // Changes with the total, the listings of the page in their order and the revision of their teams
+    public static long transferPageRevision(long totalElements, List<Long> transferIds, List<Long> teamRevisions) {
+        long revision = totalElements;
+        Iterator<Long> teamRevision = teamRevisions.iterator();
+        for (long transferId : transferIds) {
+            revision = 31 * revision + transferId;
+            revision = 31 * revision + teamRevision.next();
+        }
+        return revision;
+    }
+
+    // The current tag is only looked up for a conditional request, a missing resource never matches
+    public static <T> Optional<ResponseEntity<T>> checkNotModified(WebRequest request, Supplier<Optional<String>> currentETag) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return Optional.empty();
+        }
+        return currentETag.get()
+                .filter(eTag -> matches(request, eTag))
+                .map(eTag -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CACHE_CONTROL).build());
+    }
+
+    // The tag is left out when the body doesn't carry the revision it is built from
+    public static <T> ResponseEntity<T> ok(T body, String eTag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (eTag != null) {
+            response.eTag(eTag).cacheControl(CACHE_CONTROL);
+        }
+        return response.body(body);
+    }
+
+    // If-None-Match compares weakly and may list several tags, in one header or more, or be *
+    private static boolean matches(WebRequest request, String eTag) {
+        String[] headers = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(eTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String tag(String value) {
+        return "\"" + value + "\"";
+    }
+}
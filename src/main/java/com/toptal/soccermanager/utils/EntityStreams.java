@@ -0,0 +1,33 @@
+package com.toptal.soccermanager.utils;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Maps a forward-only stream of entities one by one. The persistence context is cleared
+ * regularly, so memory stays constant however many rows the stream returns.
+ */
+
+public final class EntityStreams {
+    private static final int CLEAR_INTERVAL = 100;
+
+    private EntityStreams() {
+    }
+
+    public static <E, D> void forEach(Stream<E> entities, EntityManager entityManager,
+                                      Function<E, D> mapper, Consumer<D> consumer) {
+        try (entities) {
+            Iterator<E> iterator = entities.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(mapper.apply(iterator.next()));
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+}
@@ -4,13 +4,13 @@ import com.toptal.soccermanager.model.dto.PlayerDto;
 import com.toptal.soccermanager.model.dto.TeamDto;
 import com.toptal.soccermanager.model.dto.TransferDto;
 import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Player;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.model.entity.Transfer;
 import com.toptal.soccermanager.model.entity.User;
 import org.springframework.stereotype.Component;
 
-import java.text.DecimalFormat;
 import java.util.stream.Collectors;
 
 @Component
@@ -32,9 +32,10 @@ public class Mapper {
         dto.setId(team.getId());
         dto.setCountry(team.getCountry());
         dto.setName(team.getName());
-        dto.setBudget(formatFloatNumber(team.getBudget()));
+        dto.setBudget(formatMoney(team.getBudget()));
+        dto.setRevision(team.getRevision());
         if (withMarketValue) {
-            dto.setMarketValue(formatFloatNumber(team.getMarketValue()));
+            dto.setMarketValue(formatMoney(team.getMarketValue()));
         }
 
         if (withUser) {
@@ -48,17 +49,6 @@ public class Mapper {
         }
         return dto;
     }
-    public TeamDto getTeamDtoFromEntity(Team team, double marketValue) {
-        TeamDto dto = new TeamDto();
-
-        dto.setId(team.getId());
-        dto.setCountry(team.getCountry());
-        dto.setName(team.getName());
-        dto.setBudget(formatFloatNumber(team.getBudget()));
-        dto.setMarketValue(formatFloatNumber(marketValue));
-
-        return dto;
-    }
 
     public PlayerDto getPlayerDtoFromEntity(Player player, boolean withTeam, boolean withTransfer) {
         PlayerDto dto = new PlayerDto();
@@ -68,7 +58,7 @@ public class Mapper {
         dto.setCountry(player.getCountry());
         dto.setAge(player.getAge());
         dto.setPosition(player.getPosition().name());
-        dto.setMarketValue(formatFloatNumber(player.getMarketValue()));
+        dto.setMarketValue(formatMoney(player.getMarketValue()));
 
         if (withTeam) {
             dto.setTeam(getTeamDtoFromEntity(player.getTeam(), false, false, false));
@@ -84,7 +74,7 @@ public class Mapper {
     public TransferDto getTransferDtoFromEntity(Transfer transfer, boolean withPlayer) {
         TransferDto dto = new TransferDto();
         dto.setId(transfer.getId());
-        dto.setAskPrice(formatFloatNumber(transfer.getAskPrice()));
+        dto.setAskPrice(formatMoney(transfer.getAskPrice()));
         if (withPlayer) {
             dto.setPlayer(getPlayerDtoFromEntity(transfer.getPlayer(), true, false));
         }
@@ -92,23 +82,9 @@ public class Mapper {
         return dto;
     }
 
-    private String formatFloatNumber(double value) {
-        if (value != 0.00) {
-            java.text.DecimalFormat df = new DecimalFormat("########.00");
-            return df.format(value);
-        } else {
-            return "0.00";
-        }
-    }
-
-    private String formatFloatNumber(Double value) {
+    private String formatMoney(Money value) {
         if (value != null) {
-            if (value != 0.00) {
-                java.text.DecimalFormat df = new DecimalFormat("########.00");
-                return df.format(value.doubleValue());
-            } else {
-                return "0.00";
-            }
+            return MoneyFormatter.format(value);
         }
         return "";
     }
@@ -0,0 +1,45 @@
+package com.toptal.soccermanager.utils;
+
+import com.toptal.soccermanager.model.entity.Money;
+
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Formats amounts of money like DecimalFormat("########.00") would, without creating a formatter per call.
+ * The text is written directly from the number of cents, with the digits and separators of the default locale.
+ */
+
+public final class MoneyFormatter {
+    private static final DecimalFormatSymbols SYMBOLS = DecimalFormatSymbols.getInstance();
+    private static final char ZERO_DIGIT = SYMBOLS.getZeroDigit();
+    private static final char DECIMAL_SEPARATOR = SYMBOLS.getDecimalSeparator();
+    private static final char MINUS_SIGN = SYMBOLS.getMinusSign();
+
+    private MoneyFormatter() {
+    }
+
+    public static String format(Money money) {
+        return money.getCents() != 0 ? formatCents(money.getCents()) : "0.00";
+    }
+
+    private static String formatCents(long cents) {
+        char[] buffer = new char[21];
+        int position = buffer.length;
+        long absolute = Math.abs(cents);
+
+        buffer[--position] = (char) (ZERO_DIGIT + absolute % 10);
+        absolute /= 10;
+        buffer[--position] = (char) (ZERO_DIGIT + absolute % 10);
+        absolute /= 10;
+        buffer[--position] = DECIMAL_SEPARATOR;
+        // The pattern has no mandatory integer digit, 0.5 is written as .50
+        while (absolute > 0) {
+            buffer[--position] = (char) (ZERO_DIGIT + absolute % 10);
+            absolute /= 10;
+        }
+        if (cents < 0) {
+            buffer[--position] = MINUS_SIGN;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+}
@@ -0,0 +1,42 @@
+package com.toptal.soccermanager.utils;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last element of a keyset page: the value of the sort key and the id breaking ties.
+ * Clients get it as an opaque string and send it back untouched to read the next page.
+ */
+
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+    private static final char SEPARATOR = ':';
+
+    private final String key;
+    private final long id;
+
+    public String encode() {
+        String raw = id + String.valueOf(SEPARATOR) + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for an empty cursor, which means the first page
+    public static PageCursor decode(String cursor) throws ApplicationException {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new PageCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new ApplicationException(ApplicationError.FILTER_CRITERIA_ERROR, "Invalid cursor", ex);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.toptal.soccermanager.utils;
 
+import com.toptal.soccermanager.model.entity.Role;
 import com.toptal.soccermanager.model.entity.Status;
 import com.toptal.soccermanager.model.entity.User;
 import org.springframework.security.core.GrantedAuthority;
@@ -10,29 +11,46 @@ import java.util.Collection;
 import java.util.Collections;
 
 public class UserInfo implements UserDetails {
-    private final User user;
+    private final long id;
+    private final String email;
+    private final String password;
+    private final Role role;
+    private final Status status;
 
     public UserInfo(final User user) {
-        this.user = user;
+        this(user.getId(), user.getEmail(), user.getPassword(), user.getRole(), user.getStatus());
+    }
+
+    // For principals built from signed token claims, they never carry a password
+    public UserInfo(final long id, final String email, final Role role, final Status status) {
+        this(id, email, null, role, status);
+    }
+
+    private UserInfo(final long id, final String email, final String password, final Role role, final Status status) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.status = status;
     }
 
     public long getId() {
-        return user.getId();
+        return id;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singleton(new SimpleGrantedAuthority(user.getRole().name()));
+        return Collections.singleton(new SimpleGrantedAuthority(role.name()));
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -42,7 +60,7 @@ public class UserInfo implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.getStatus() != Status.BLOCKED;
+        return status != Status.BLOCKED;
     }
 
     @Override
@@ -52,6 +70,6 @@ public class UserInfo implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.getStatus() == Status.ACTIVE;
+        return status == Status.ACTIVE;
     }
 }
@@ -0,0 +1,47 @@
+-- Schema of the entities. Databases created by the former ddl-auto=update are baselined at version 0,
+-- so the tables they already have are kept and upgraded by V2
+create sequence if not exists user_account_seq start 1 increment 50;
+create sequence if not exists player_seq start 1 increment 50;
+
+create table if not exists user_account (
+    id             bigint       not null,
+    email          varchar(255) not null,
+    password       varchar(255) not null,
+    full_name      varchar(60)  not null,
+    role           varchar(15)  not null,
+    status         varchar(10)  not null,
+    login_attempts integer      not null,
+    constraint user_account_pkey primary key (id),
+    constraint uk_user_account_email unique (email)
+);
+
+-- Amounts are in cents
+create table if not exists team (
+    user_id      bigint      not null,
+    name         varchar(60) not null,
+    country      varchar(60) not null,
+    budget       bigint      not null,
+    market_value bigint      not null default 0,
+    constraint team_pkey primary key (user_id),
+    constraint fk_team_user_account foreign key (user_id) references user_account (id)
+);
+
+create table if not exists player (
+    id           bigint      not null,
+    first_name   varchar(30) not null,
+    last_name    varchar(30) not null,
+    country      varchar(60) not null,
+    age          integer     not null,
+    position     varchar(10) not null,
+    market_value bigint      not null,
+    team_id      bigint      not null,
+    constraint player_pkey primary key (id),
+    constraint fk_player_team foreign key (team_id) references team (user_id)
+);
+
+create table if not exists transfer (
+    player_id bigint not null,
+    ask_price bigint not null,
+    constraint transfer_pkey primary key (player_id),
+    constraint fk_transfer_player foreign key (player_id) references player (id)
+);
@@ -0,0 +1,34 @@
+-- Brings a database created by ddl-auto=update up to V1, a no-op on a database created by it.
+-- Those databases hold amounts as double precision units, take ids from identity columns and may lack team.market_value
+do $$
+declare
+    money_column record;
+begin
+    for money_column in
+        select table_name, column_name from information_schema.columns
+        where table_schema = current_schema()
+          and (table_name, column_name) in (('team', 'budget'), ('team', 'market_value'),
+                                            ('player', 'market_value'), ('transfer', 'ask_price'))
+          and data_type in ('double precision', 'real', 'numeric')
+    loop
+        execute format('alter table %I alter column %I type bigint using round(%I * 100)',
+                money_column.table_name, money_column.column_name, money_column.column_name);
+    end loop;
+
+    if not exists (select 1 from information_schema.columns
+                   where table_schema = current_schema() and table_name = 'team' and column_name = 'market_value') then
+        alter table team add column market_value bigint not null default 0;
+        update team set market_value = (select coalesce(sum(p.market_value), 0) from player p where p.team_id = team.user_id);
+    end if;
+end
+$$;
+
+alter table user_account alter column id drop identity if exists;
+alter table player alter column id drop identity if exists;
+
+-- Ids are taken from the sequences in blocks of 50 ending at their value, which has to be past the ids handed out so far.
+-- An unused sequence still hands out its start value, hence the equality
+select setval('user_account_seq', (select max(id) from user_account))
+where (select max(id) from user_account) >= (select last_value from user_account_seq);
+select setval('player_seq', (select max(id) from player))
+where (select max(id) from player) >= (select last_value from player_seq);
@@ -0,0 +1,15 @@
+-- Squad of a team in position order
+create index if not exists idx_player_team_position on player (team_id, position);
+
+-- Transfer market: listings by ask price, also its keyset pages, and the search filters
+create index if not exists idx_transfer_ask_price on transfer (ask_price, player_id);
+create index if not exists idx_player_country_position_market_value on player (country, position, market_value);
+create index if not exists idx_player_position_market_value on player (position, market_value);
+
+-- Teams by name, also their keyset pages
+create index if not exists idx_team_name on team (name, user_id);
+
+-- Name prefixes of the search, matched on lower(name) like 'prefix%' whatever the collation of the database
+create index if not exists idx_team_name_lower on team (lower(name) text_pattern_ops);
+create index if not exists idx_player_first_name_lower on player (lower(first_name) text_pattern_ops);
+create index if not exists idx_player_last_name_lower on player (lower(last_name) text_pattern_ops);
@@ -0,0 +1,2 @@
+-- Revision of a team, its players and their listings, the entity tags of their resources are built from it
+alter table team add column if not exists revision bigint not null default 0;
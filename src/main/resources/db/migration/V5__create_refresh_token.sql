@@ -0,0 +1,18 @@
+-- Refresh tokens, stored as their SHA-256. Exchanged tokens are kept as used, so that their reuse can be recognized
+create sequence if not exists refresh_token_seq start 1 increment 50;
+
+create table if not exists refresh_token (
+    id         bigint      not null,
+    token_hash varchar(64) not null,
+    family     varchar(36) not null,
+    user_id    bigint      not null,
+    expires_at timestamp   not null,
+    used       boolean     not null,
+    revoked    boolean     not null,
+    constraint refresh_token_pkey primary key (id),
+    constraint uk_refresh_token_token_hash unique (token_hash),
+    constraint fk_refresh_token_user_account foreign key (user_id) references user_account (id) on delete cascade
+);
+
+create index if not exists idx_refresh_token_family on refresh_token (family);
+create index if not exists idx_refresh_token_user_id on refresh_token (user_id);
@@ -0,0 +1,32 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.model.entity.*;
+
+import java.util.HashSet;
+
+/**
+ * Entities shaped like the ones the application serves, built without a database.
+ */
+
+final class BenchmarkFixtures {
+    static final int PLAYERS_PER_TEAM = 20;
+
+    private BenchmarkFixtures() {
+    }
+
+    static Team team(long id) {
+        User user = new User(id, "user" + id + "@xyz.com", "pwd", "User " + id, Role.ROLE_USER, Status.ACTIVE, 0, null);
+        Team team = new Team(id, "Team " + id, "Spain", Money.of(5000000), Money.ZERO, 0, user, new HashSet<>());
+        user.setTeam(team);
+        for (int p = 0; p < PLAYERS_PER_TEAM; p++) {
+            Position position = Position.values()[p % Position.values().length];
+            Player player = new Player(id * PLAYERS_PER_TEAM + p, "First" + p, "Last" + p, "Italy", 18 + p,
+                    position, Money.of(1000000 + 12345.67 * p), null, null);
+            if (p % 4 == 0) {
+                player.setTransfer(new Transfer(player.getId(), Money.of(1500000), player));
+            }
+            team.addPlayer(player);
+        }
+        return team;
+    }
+}
@@ -0,0 +1,33 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.model.entity.Team;
+import com.toptal.soccermanager.utils.Creator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating a signup team when the template pool is empty, which is what the refill thread pays for every team.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreatorBenchmark {
+    private final Creator creator = new Creator();
+
+    @Setup
+    public void setUp() {
+        ReflectionTestUtils.setField(creator, "poolSize", 0);
+        creator.startPool();
+    }
+
+    @Benchmark
+    public Team createTeamWithoutPool() {
+        return creator.createTeam();
+    }
+}
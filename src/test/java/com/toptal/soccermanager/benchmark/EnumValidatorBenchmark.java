@@ -0,0 +1,63 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.model.entity.Position;
+import com.toptal.soccermanager.utils.EnumValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of the position of a player request, for an accepted and a rejected value.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumValidatorBenchmark {
+    private final EnumValidator.EnumValidatorImpl validator = new EnumValidator.EnumValidatorImpl();
+
+    @Setup
+    public void setUp() {
+        validator.initialize(new EnumValidator() {
+            @Override
+            public Class<? extends Enum<?>> enumClazz() {
+                return Position.class;
+            }
+
+            @Override
+            public String message() {
+                return "Value is not valid";
+            }
+
+            @Override
+            public Class<?>[] groups() {
+                return new Class<?>[0];
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public Class<? extends javax.validation.Payload>[] payload() {
+                return new Class[0];
+            }
+
+            @Override
+            public Class<? extends Annotation> annotationType() {
+                return EnumValidator.class;
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean validValue() {
+        return validator.isValid("midfielder", null);
+    }
+
+    @Benchmark
+    public boolean invalidValue() {
+        return validator.isValid("Coach", null);
+    }
+}
@@ -0,0 +1,81 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.configuration.authentication.JwtClaimsCache;
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.model.dto.UserDto;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens issued and validated per second, with the claims cache disabled so every validation verifies the signature.
+ * The perCall benchmarks decode the secret and build the parser for each token, as JwtUtils did before keeping them.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private final JwtUtils jwtUtils = new JwtUtils();
+    private final UserDto user = new UserDto(1L, "user@xyz.com", "User", "ROLE_USER", "ACTIVE");
+    private String secret;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        byte[] secretBytes = new byte[64];
+        new Random(42).nextBytes(secretBytes);
+        secret = Base64.getEncoder().encodeToString(secretBytes);
+        JwtClaimsCache claimsCache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(claimsCache, "maxSize", 0);
+
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "keyId", "1");
+        ReflectionTestUtils.setField(jwtUtils, "previousKeys", new String[0]);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationInSeconds", 900);
+        ReflectionTestUtils.setField(jwtUtils, "claimsCache", claimsCache);
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtils.createKeys();
+        token = jwtUtils.getJwtToken(user);
+    }
+
+    @Benchmark
+    public String getJwtToken() {
+        return jwtUtils.getJwtToken(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    @Benchmark
+    public String getJwtToken_perCall() {
+        return Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim("id", user.getId())
+                .claim("role", user.getRole())
+                .claim("status", user.getStatus())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 900_000L))
+                .signWith(SignatureAlgorithm.HS512, TextCodec.BASE64.decode(secret))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims validateToken_perCall() {
+        return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,42 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.model.dto.PlayerDto;
+import com.toptal.soccermanager.model.dto.TeamDto;
+import com.toptal.soccermanager.model.entity.Player;
+import com.toptal.soccermanager.model.entity.Team;
+import com.toptal.soccermanager.utils.Mapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of a full team page and of a single listed player.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    private final Mapper mapper = new Mapper();
+    private Team team;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        team = BenchmarkFixtures.team(1);
+        player = team.getPlayers().stream().filter(p -> p.getTransfer() != null).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public TeamDto teamWithPlayers() {
+        return mapper.getTeamDtoFromEntity(team, true, true, true);
+    }
+
+    @Benchmark
+    public PlayerDto playerWithTeamAndTransfer() {
+        return mapper.getPlayerDtoFromEntity(player, true, true);
+    }
+}
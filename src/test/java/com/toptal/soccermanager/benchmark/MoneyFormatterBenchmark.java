@@ -0,0 +1,55 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.model.entity.Money;
+import com.toptal.soccermanager.utils.MoneyFormatter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.DecimalFormat;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats the market values of a player listing, with a DecimalFormat per value as before and with MoneyFormatter.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyFormatterBenchmark {
+    @Param({"20", "1000", "10000"})
+    private int listSize;
+
+    private Money[] values;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        values = new Money[listSize];
+        for (int i = 0; i < listSize; i++) {
+            // Initial value raised by a few transfers
+            Money value = Money.of(1000000);
+            for (int t = random.nextInt(4); t > 0; t--) {
+                value = value.plusPercent(10 + random.nextInt(90));
+            }
+            values[i] = value;
+        }
+    }
+
+    @Benchmark
+    public void decimalFormatPerValue(Blackhole blackhole) {
+        for (Money value : values) {
+            blackhole.consume(new DecimalFormat("########.00").format(value.getCents() / 100.0));
+        }
+    }
+
+    @Benchmark
+    public void moneyFormatter(Blackhole blackhole) {
+        for (Money value : values) {
+            blackhole.consume(MoneyFormatter.format(value));
+        }
+    }
+}
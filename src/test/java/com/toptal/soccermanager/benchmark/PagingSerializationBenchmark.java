@@ -0,0 +1,48 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toptal.soccermanager.model.dto.PagingDataRespDto;
+import com.toptal.soccermanager.model.dto.PlayerDto;
+import com.toptal.soccermanager.utils.Mapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a page of players, as the paged listing endpoints write it.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagingSerializationBenchmark {
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private PagingDataRespDto<PlayerDto> page;
+
+    @Setup
+    public void setUp() {
+        Mapper mapper = new Mapper();
+        List<PlayerDto> players = new ArrayList<>();
+        for (long t = 1; players.size() < pageSize; t++) {
+            BenchmarkFixtures.team(t).getPlayers().stream()
+                    .limit(pageSize - players.size())
+                    .forEach(p -> players.add(mapper.getPlayerDtoFromEntity(p, true, true)));
+        }
+        page = new PagingDataRespDto<>(1000L, 1000 / pageSize, players);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
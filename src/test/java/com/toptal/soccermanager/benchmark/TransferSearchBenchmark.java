@@ -0,0 +1,119 @@
+package com.toptal.soccermanager.benchmark;
+
+import com.toptal.soccermanager.SoccerManagerApplication;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.PagingDataReqDto;
+import com.toptal.soccermanager.model.dto.PagingDataRespDto;
+import com.toptal.soccermanager.model.dto.TransferDto;
+import com.toptal.soccermanager.model.dto.TransferFilterDto;
+import com.toptal.soccermanager.service.TransferService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a transfer market search, count of the matches included, against the in-memory database
+ * holding the given number of listings: one per player, 20 players per team.
+ * Run a smaller market with: mvn -P benchmark -DskipTests verify -Djmh.include=TransferSearchBenchmark -Djmh.listings=100000
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TransferSearchBenchmark {
+    private static final PagingDataReqDto FIRST_PAGE = new PagingDataReqDto(0, 20);
+    private static final int COUNTRIES = 50;
+    // Rows numbered 1 to the bound parameter, the column of system_range is upper case while the database folds names to lower case
+    private static final String RANGE = "from (select \"X\" as x from system_range(1, ?)) r";
+
+    @Param({"1000000"})
+    public int listings;
+
+    private ConfigurableApplicationContext context;
+    private TransferService transferService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SoccerManagerApplication.class)
+                .profiles("h2")
+                .properties("server.port=0", "creator.team-pool.size=0", "logging.level.root=warn",
+                        "spring.jpa.properties.hibernate.generate_statistics=false")
+                .run();
+        transferService = context.getBean(TransferService.class);
+        try {
+            seed(context.getBean(JdbcTemplate.class), listings);
+        } catch (RuntimeException ex) {
+            context.close();
+            throw ex;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> unfiltered() throws ApplicationException {
+        return search(new TransferFilterDto());
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> countryAndPosition() throws ApplicationException {
+        return search(new TransferFilterDto("Country 7", null, null, "Defender", null, null, null, null));
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> askPriceRange() throws ApplicationException {
+        return search(new TransferFilterDto(null, null, null, null, 1000000.0, 1010000.0, null, null));
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> positionAndMarketValueRange() throws ApplicationException {
+        return search(new TransferFilterDto(null, null, null, "Attacker", null, null, 2000000.0, 2050000.0));
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> teamName() throws ApplicationException {
+        return search(new TransferFilterDto(null, "Team 123", null, null, null, null, null, null));
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> playerName() throws ApplicationException {
+        return search(new TransferFilterDto(null, null, "Last 4567", null, null, null, null, null));
+    }
+
+    @Benchmark
+    public PagingDataRespDto<TransferDto> allRanges() throws ApplicationException {
+        return search(new TransferFilterDto("Country 7", null, null, "Midfielder", 500000.0, 5000000.0, 1000000.0, 9000000.0));
+    }
+
+    private PagingDataRespDto<TransferDto> search(TransferFilterDto filter) throws ApplicationException {
+        return transferService.search(filter, FIRST_PAGE);
+    }
+
+    // Set based inserts of H2, an insert per row would take longer than the benchmark itself
+    private static void seed(JdbcTemplate jdbcTemplate, int listings) {
+        int teams = Math.max(1, listings / BenchmarkFixtures.PLAYERS_PER_TEAM);
+        jdbcTemplate.update("insert into user_account (id, email, password, full_name, role, status, login_attempts) " +
+                "select x, 'user' || x || '@xyz.com', 'pwd', 'User ' || x, 'ROLE_USER', 'ACTIVE', 0 " +
+                RANGE, teams);
+        jdbcTemplate.update("insert into team (user_id, name, country, budget, market_value) " +
+                "select x, 'Team ' || x, 'Country ' || mod(x, " + COUNTRIES + "), 500000000, 0 " +
+                RANGE, teams);
+        jdbcTemplate.update("insert into player (id, first_name, last_name, country, age, position, market_value, team_id) " +
+                "select x, 'First ' || mod(x, 1000), 'Last ' || x, 'Country ' || mod(x * 7, " + COUNTRIES + "), 18 + mod(x, 23), " +
+                "case mod(x, 4) when 0 then 'Goalkeeper' when 1 then 'Defender' when 2 then 'Midfielder' else 'Attacker' end, " +
+                "100000000 + mod(x * 7919, 900000000), 1 + mod(x, ?) " +
+                RANGE, teams, listings);
+        jdbcTemplate.update("insert into transfer (player_id, ask_price) " +
+                "select x, 50000000 + mod(x * 104729, 950000000) " + RANGE, listings);
+        jdbcTemplate.execute("analyze");
+    }
+}
@@ -0,0 +1,99 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.configuration.authentication.JwtClaimsCache;
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.model.dto.UserDto;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Key ids of the issued tokens and their verification while the signing key is rotated.
+ */
+
+public class JwtUtilsTest {
+    private static final String FIRST_SECRET = secret('a');
+    private static final String SECOND_SECRET = secret('b');
+
+    private final UserDto user = new UserDto(1L, "abc@xyz.com", "User", "ROLE_USER", "ACTIVE");
+
+    @Test
+    public void testTokenNamesItsKey() {
+        JwtUtils jwtUtils = jwtUtils(FIRST_SECRET, "1");
+
+        String token = jwtUtils.getJwtToken(user);
+
+        assertEquals("1", Jwts.parser().setSigningKey(FIRST_SECRET).parseClaimsJws(token).getHeader().getKeyId());
+        assertEquals(1L, jwtUtils.getClaimsFromJwtToken(token).get("id", Long.class));
+    }
+
+    @Test
+    public void testPreviousKeyStillVerifies() {
+        String token = jwtUtils(FIRST_SECRET, "1").getJwtToken(user);
+
+        JwtUtils rotated = jwtUtils(SECOND_SECRET, "2", "1:" + FIRST_SECRET);
+
+        assertTrue(rotated.validateToken(token));
+        assertEquals("2", Jwts.parser().setSigningKey(SECOND_SECRET).parseClaimsJws(rotated.getJwtToken(user)).getHeader().getKeyId());
+    }
+
+    @Test
+    public void testRemovedKeyIsRejected() {
+        String token = jwtUtils(FIRST_SECRET, "1").getJwtToken(user);
+
+        assertFalse(jwtUtils(SECOND_SECRET, "2").validateToken(token));
+    }
+
+    @Test
+    public void testKeyIdMustMatchSecret() {
+        String token = jwtUtils(FIRST_SECRET, "1").getJwtToken(user);
+
+        // Same key id, another secret
+        assertFalse(jwtUtils(SECOND_SECRET, "1").validateToken(token));
+    }
+
+    @Test
+    public void testTokenWithoutKeyIdUsesCurrentKey() {
+        String token = Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim("id", user.getId())
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS512, TextCodec.BASE64.decode(FIRST_SECRET))
+                .compact();
+
+        assertTrue(jwtUtils(FIRST_SECRET, "1").validateToken(token));
+        assertFalse(jwtUtils(SECOND_SECRET, "2", "1:" + FIRST_SECRET).validateToken(token));
+    }
+
+    @Test
+    public void testMalformedPreviousKey() {
+        assertThrows(IllegalStateException.class, () -> jwtUtils(SECOND_SECRET, "2", FIRST_SECRET));
+    }
+
+    private static JwtUtils jwtUtils(String secret, String keyId, String... previousKeys) {
+        JwtClaimsCache claimsCache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(claimsCache, "maxSize", 0);
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "keyId", keyId);
+        ReflectionTestUtils.setField(jwtUtils, "previousKeys", previousKeys);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationInSeconds", 900);
+        ReflectionTestUtils.setField(jwtUtils, "claimsCache", claimsCache);
+        ReflectionTestUtils.setField(jwtUtils, "meterRegistry", new SimpleMeterRegistry());
+        jwtUtils.createKeys();
+        return jwtUtils;
+    }
+
+    private static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(64).getBytes());
+    }
+}
@@ -0,0 +1,149 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.configuration.authentication.LoginThrottle;
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleTest {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String EMAIL = "abc@xyz.com";
+    private static final String ADDRESS = "10.0.0.1";
+
+    private final LoginThrottle loginThrottle = new LoginThrottle();
+
+    @BeforeEach
+    public void setUp() {
+        configure(900, 4);
+    }
+
+    @Test
+    public void testEmailAttemptsAreLimited() throws ApplicationException {
+        for (int i = 1; i <= MAX_ATTEMPTS; i++) {
+            assertEquals(i, loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS).getEmailAttempts());
+        }
+
+        assertThrottled(EMAIL, null);
+        // Other emails are not concerned
+        assertEquals(1, loginThrottle.acquire("def@xyz.com", null, MAX_ATTEMPTS).getEmailAttempts());
+    }
+
+    @Test
+    public void testAddressAttemptsAreLimited() throws ApplicationException {
+        for (int i = 0; i < 4; i++) {
+            loginThrottle.acquire("user" + i + "@xyz.com", ADDRESS, MAX_ATTEMPTS);
+        }
+
+        assertThrottled("user5@xyz.com", ADDRESS);
+        assertEquals(1, loginThrottle.acquire("user5@xyz.com", "10.0.0.2", MAX_ATTEMPTS).getEmailAttempts());
+    }
+
+    @Test
+    public void testThrottledAddressTakesNoEmailAttempt() throws ApplicationException {
+        for (int i = 0; i < 4; i++) {
+            loginThrottle.acquire("user" + i + "@xyz.com", ADDRESS, MAX_ATTEMPTS);
+        }
+        assertThrottled(EMAIL, ADDRESS);
+
+        assertEquals(1, loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS).getEmailAttempts());
+    }
+
+    @Test
+    public void testSuccessStartsOver() throws ApplicationException {
+        loginThrottle.acquire(EMAIL, ADDRESS, MAX_ATTEMPTS);
+        loginThrottle.acquire(EMAIL, ADDRESS, MAX_ATTEMPTS).succeeded();
+
+        assertEquals(1, loginThrottle.acquire(EMAIL, ADDRESS, MAX_ATTEMPTS).getEmailAttempts());
+        // The address only got the successful attempt back
+        loginThrottle.acquire("def@xyz.com", ADDRESS, MAX_ATTEMPTS);
+        loginThrottle.acquire("ghi@xyz.com", ADDRESS, MAX_ATTEMPTS);
+        assertThrottled("jkl@xyz.com", ADDRESS);
+    }
+
+    @Test
+    public void testCancelledAttemptIsGivenBack() throws ApplicationException {
+        loginThrottle.acquire(EMAIL, ADDRESS, MAX_ATTEMPTS);
+        loginThrottle.acquire(EMAIL, ADDRESS, MAX_ATTEMPTS).cancelled();
+
+        assertEquals(2, loginThrottle.acquire(EMAIL, ADDRESS, MAX_ATTEMPTS).getEmailAttempts());
+    }
+
+    @Test
+    public void testReset() throws ApplicationException {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS);
+        }
+
+        loginThrottle.reset(EMAIL);
+
+        assertEquals(1, loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS).getEmailAttempts());
+    }
+
+    @Test
+    public void testWindowExpires() throws Exception {
+        configure(1, 4);
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS);
+        }
+        assertThrottled(EMAIL, null);
+
+        Thread.sleep(2000);
+
+        assertEquals(1, loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS).getEmailAttempts());
+    }
+
+    @Test
+    public void testConcurrentAttempts() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger acquired = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int i = 0; i < threads * 10; i++) {
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loginThrottle.acquire(EMAIL, null, MAX_ATTEMPTS);
+                        acquired.incrementAndGet();
+                    } catch (ApplicationException ex) {
+                        throttled.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(MAX_ATTEMPTS, acquired.get());
+        assertEquals(threads * 10 - MAX_ATTEMPTS, throttled.get());
+    }
+
+    private void configure(int windowInSeconds, int maxAddressAttempts) {
+        ReflectionTestUtils.setField(loginThrottle, "windowInSeconds", windowInSeconds);
+        ReflectionTestUtils.setField(loginThrottle, "maxAddressAttempts", maxAddressAttempts);
+        ReflectionTestUtils.setField(loginThrottle, "maxKeys", 1000);
+        ReflectionTestUtils.setField(loginThrottle, "stripes", 4);
+        loginThrottle.createCounters();
+    }
+
+    private void assertThrottled(String email, String address) {
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> loginThrottle.acquire(email, address, MAX_ATTEMPTS));
+        assertEquals(ApplicationError.LOGIN_THROTTLED, ex.getApplicationError());
+    }
+}
@@ -0,0 +1,72 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.model.dto.UserCreateDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The actuator on its own port: the scraper reads the metrics there, the API port does not serve them to anyone.
+ */
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@ActiveProfiles("h2")
+@AutoConfigureMetrics
+public class ManagementPortTest {
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Test
+    public void testManagementPort() throws Exception {
+        assertNotEquals(port, managementPort);
+        assertEquals(200, get(managementPort, "/actuator/health", null).statusCode());
+
+        HttpResponse<String> response = get(managementPort, "/actuator/prometheus", null);
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("soccermanager_creator_team_pool_depth"));
+    }
+
+    @Test
+    public void testApiPort() throws Exception {
+        UserDto user = userService.create(new UserCreateDto("management@xyz.com", "password", "User", "ROLE_USER"));
+        try {
+            assertEquals(401, get(port, "/actuator/prometheus", null).statusCode());
+            assertEquals(403, get(port, "/actuator/prometheus", jwtUtils.getJwtToken(user)).statusCode());
+        } finally {
+            userService.delete(user.getId());
+        }
+    }
+
+    private HttpResponse<String> get(int port, String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).GET();
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,189 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.CredentialDto;
+import com.toptal.soccermanager.model.dto.UserCreateDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import com.toptal.soccermanager.service.TeamService;
+import com.toptal.soccermanager.service.UserService;
+import com.toptal.soccermanager.utils.Creator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class MetricsTest {
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PrometheusMeterRegistry prometheusMeterRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private Creator creator;
+
+    @AfterEach
+    public void tearDown() {
+        transferRepository.deleteAllInBatch();
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testLoginTimers() throws ApplicationException {
+        userService.create(new UserCreateDto("metrics-login@xyz.com", PASSWORD, "User", "ROLE_USER"));
+        long logins = timerCount("soccermanager.service", "method", "login", "exception", "none");
+        long failedLogins = timerCount("soccermanager.service", "method", "login", "exception", "USER_CREDENTIALS_INVALID");
+        long passwordChecks = timerCount("soccermanager.password.encoder", "method", "matches", "exception", "none");
+
+        userService.login(new CredentialDto("metrics-login@xyz.com", PASSWORD), null).join();
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> userService.login(new CredentialDto("metrics-login@xyz.com", "wrong"), null).join());
+        assertInstanceOf(ApplicationException.class, ex.getCause());
+
+        assertEquals(logins + 1, timerCount("soccermanager.service", "method", "login", "exception", "none"));
+        assertEquals(failedLogins + 1, timerCount("soccermanager.service", "method", "login", "exception", "USER_CREDENTIALS_INVALID"));
+        assertEquals(passwordChecks + 2, timerCount("soccermanager.password.encoder", "method", "matches", "exception", "none"));
+    }
+
+    @Test
+    public void testLoginExecutorMetrics() throws Exception {
+        userService.create(new UserCreateDto("metrics-executor@xyz.com", PASSWORD, "User", "ROLE_USER"));
+        userService.login(new CredentialDto("metrics-executor@xyz.com", PASSWORD), null).join();
+
+        assertNotNull(meterRegistry.find("executor.queued").tags("name", "login").gauge());
+        assertNotNull(meterRegistry.find("executor.queue.remaining").tags("name", "login").gauge());
+        FunctionCounter completed = meterRegistry.find("executor.completed").tags("name", "login").functionCounter();
+        assertNotNull(completed);
+        // The pool counts a task as completed only after its future, so the count may lag behind the login
+        awaitCount(completed, 1);
+    }
+
+    @Test
+    public void testTeamPoolMetrics() throws ApplicationException {
+        userService.create(new UserCreateDto("metrics-pool@xyz.com", PASSWORD, "User", "ROLE_USER"));
+
+        FunctionCounter misses = meterRegistry.find("soccermanager.creator.team.pool.misses").functionCounter();
+        assertNotNull(misses);
+        assertEquals(creator.getPoolMisses(), misses.count());
+        Gauge depth = meterRegistry.find("soccermanager.creator.team.pool.depth").gauge();
+        assertNotNull(depth);
+        assertTrue(depth.value() >= 0 && depth.value() <= 200);
+    }
+
+    @Test
+    public void testRequestStatementsAndRows() throws Exception {
+        UserDto user = userService.create(new UserCreateDto("metrics-rows@xyz.com", PASSWORD, "User", "ROLE_USER"));
+        String token = jwtUtils.getJwtToken(user);
+
+        mockMvc.perform(get("/teams/" + user.getId() + "/players?page=0&size=5")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.find("soccermanager.request.statements")
+                .tags("method", "GET", "uri", "/teams/{teamId}/players").summary();
+        assertNotNull(statements);
+        assertTrue(statements.count() >= 1);
+        assertTrue(statements.max() > 0);
+
+        DistributionSummary rows = meterRegistry.find("soccermanager.repository.rows")
+                .tags("repository", "PlayerRepository", "method", "findAllPlayersByTeamId").summary();
+        assertNotNull(rows);
+        assertEquals(5, rows.max());
+
+        assertNotNull(meterRegistry.find("soccermanager.jwt.filter").tags("authenticated", "true").timer());
+    }
+
+    @Test
+    public void testSecondLevelCacheCounters() throws ApplicationException {
+        UserDto user = userService.create(new UserCreateDto("metrics-cache@xyz.com", PASSWORD, "User", "ROLE_USER"));
+        double hits = functionCount("hibernate.second.level.cache.requests", "region", "team", "result", "hit");
+        double queryHits = functionCount("hibernate.cache.query.requests", "result", "hit");
+
+        teamService.getByIdWithPlayers(user.getId());
+        teamService.getByIdWithPlayers(user.getId());
+
+        assertTrue(functionCount("hibernate.second.level.cache.requests", "region", "team", "result", "hit") > hits);
+        assertTrue(functionCount("hibernate.cache.query.requests", "result", "hit") > queryHits);
+    }
+
+    @Test
+    public void testPrometheusScrape() throws Exception {
+        userService.create(new UserCreateDto("metrics-scrape@xyz.com", PASSWORD, "User", "ROLE_USER"));
+
+        String scrape = prometheusMeterRegistry.scrape();
+        assertTrue(scrape.contains("soccermanager_service_seconds_count"));
+        assertTrue(scrape.contains("soccermanager_password_encoder_seconds_count"));
+        assertTrue(scrape.contains("hibernate_second_level_cache_requests_total"));
+    }
+
+    private void awaitCount(FunctionCounter counter, double count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (counter.count() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(counter.count() >= count);
+    }
+
+    private double functionCount(String name, String... tags) {
+        FunctionCounter counter = meterRegistry.find(name).tags(tags).functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private long timerCount(String name, String... tags) {
+        Timer timer = meterRegistry.find(name).tags(tags).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,120 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.configuration.authentication.PasswordChecker;
+import com.toptal.soccermanager.configuration.authentication.PasswordChecker.PasswordCheck;
+import com.toptal.soccermanager.configuration.authentication.SecurityConfiguration;
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Password checks against the delegating encoder of SecurityConfiguration at strength 5,
+ * with hashes stored before it was introduced or at another strength.
+ */
+
+public class PasswordCheckerTest {
+    private static final String PASSWORD = "password";
+
+    private final PasswordEncoder passwordEncoder = SecurityConfiguration.delegatingPasswordEncoder(5);
+    private final PasswordChecker passwordChecker = new PasswordChecker();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(passwordChecker, "threads", 1);
+        ReflectionTestUtils.setField(passwordChecker, "queueCapacity", 10);
+        ReflectionTestUtils.setField(passwordChecker, "encodeTimeoutInMillis", 30000L);
+        ReflectionTestUtils.setField(passwordChecker, "passwordEncoder", passwordEncoder);
+        ReflectionTestUtils.setField(passwordChecker, "meterRegistry", new SimpleMeterRegistry());
+        passwordChecker.startPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordChecker.stopPool();
+    }
+
+    @Test
+    public void testCurrentHashIsKept() throws ApplicationException {
+        PasswordCheck check = passwordChecker.check(PASSWORD, passwordEncoder.encode(PASSWORD)).join();
+
+        assertTrue(check.isMatches());
+        assertNull(check.getUpgradedPassword());
+    }
+
+    @Test
+    public void testWrongPassword() throws ApplicationException {
+        PasswordCheck check = passwordChecker.check("wrong", new BCryptPasswordEncoder(4).encode(PASSWORD)).join();
+
+        assertFalse(check.isMatches());
+        assertNull(check.getUpgradedPassword());
+    }
+
+    @Test
+    public void testUnprefixedHashIsUpgraded() throws ApplicationException {
+        String legacyPassword = new BCryptPasswordEncoder(5).encode(PASSWORD);
+
+        PasswordCheck check = passwordChecker.check(PASSWORD, legacyPassword).join();
+
+        assertTrue(check.isMatches());
+        assertTrue(check.getUpgradedPassword().startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordEncoder.matches(PASSWORD, check.getUpgradedPassword()));
+    }
+
+    @Test
+    public void testWeakerHashIsUpgraded() throws ApplicationException {
+        String weakerPassword = "{bcrypt}" + new BCryptPasswordEncoder(4).encode(PASSWORD);
+
+        PasswordCheck check = passwordChecker.check(PASSWORD, weakerPassword).join();
+
+        assertTrue(check.isMatches());
+        assertTrue(check.getUpgradedPassword().startsWith("{bcrypt}$2a$05$"));
+    }
+
+    @Test
+    public void testStrongerHashIsKept() throws ApplicationException {
+        String strongerPassword = "{bcrypt}" + new BCryptPasswordEncoder(6).encode(PASSWORD);
+
+        PasswordCheck check = passwordChecker.check(PASSWORD, strongerPassword).join();
+
+        assertTrue(check.isMatches());
+        assertNull(check.getUpgradedPassword());
+    }
+
+    @Test
+    public void testEncodeAll() throws ApplicationException {
+        List<String> hashes = passwordChecker.encodeAll(Arrays.asList(PASSWORD, "another"));
+
+        assertEquals(2, hashes.size());
+        assertTrue(passwordEncoder.matches(PASSWORD, hashes.get(0)));
+        assertTrue(passwordEncoder.matches("another", hashes.get(1)));
+    }
+
+    @Test
+    public void testEncodeAll_queueFull() {
+        List<String> rawPasswords = Collections.nCopies(20, PASSWORD);
+
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> passwordChecker.encodeAll(rawPasswords));
+        assertEquals(ApplicationError.SIGNUP_UNAVAILABLE, ex.getApplicationError());
+    }
+
+    @Test
+    public void testEncodeAll_timeout() {
+        ReflectionTestUtils.setField(passwordChecker, "encodeTimeoutInMillis", 1L);
+        List<String> rawPasswords = Collections.nCopies(10, PASSWORD);
+
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> passwordChecker.encodeAll(rawPasswords));
+        assertEquals(ApplicationError.SIGNUP_UNAVAILABLE, ex.getApplicationError());
+    }
+}
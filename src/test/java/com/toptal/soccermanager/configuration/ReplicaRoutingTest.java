@@ -0,0 +1,200 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.model.dto.PagingDataReqDto;
+import com.toptal.soccermanager.model.dto.UserCreateDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.model.entity.Role;
+import com.toptal.soccermanager.model.entity.Status;
+import com.toptal.soccermanager.model.entity.Team;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.service.TeamService;
+import com.toptal.soccermanager.service.UserService;
+import com.toptal.soccermanager.utils.UserInfo;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routing of the transactions between the primary and the replica pool. The replica is a second in-memory database,
+ * a copy of the test database taken before each test and not updated afterwards, as a lagging replica would be.
+ * The pool serving a transaction is the one with a connection in use while it runs.
+ */
+
+@SpringBootTest(properties = {"datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL, "creator.team-pool.size=0"})
+@ActiveProfiles("h2")
+public class ReplicaRoutingTest {
+    // Settings of the test database, the copy runs its script
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private HikariDataSource replicaDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        replicate();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testReadOnlyTransactionGoesToReplica() {
+        assertEquals("replica", servingPool(true));
+    }
+
+    @Test
+    public void testWriteTransactionGoesToPrimary() {
+        assertEquals("primary", servingPool(false));
+    }
+
+    @Test
+    public void testReadOnlyServiceMethodRunsOnReplica() throws Exception {
+        TransactionTemplate readOnly = transaction(true);
+        // Joins the read-only transaction of the template like it would start its own
+        assertEquals("replica", readOnly.execute(status -> {
+            try {
+                teamService.getAll(new PagingDataReqDto(0, 10));
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            return activePool();
+        }));
+    }
+
+    @Test
+    public void testWriterReadsOwnWrites() {
+        signIn(1001);
+        transaction(false).execute(status -> teamRepository.count());
+        assertEquals("primary", servingPool(true));
+
+        signIn(1002);
+        assertEquals("replica", servingPool(true));
+    }
+
+    @Test
+    public void testRolledBackWriteIsNoWrite() {
+        signIn(1003);
+        transaction(false).execute(status -> {
+            teamRepository.count();
+            status.setRollbackOnly();
+            return null;
+        });
+        assertEquals("replica", servingPool(true));
+    }
+
+    @Test
+    public void testLaggingReplicaDoesNotFillCaches() throws Exception {
+        UserDto user = userService.create(new UserCreateDto("replica@xyz.com", "password", "User", "ROLE_USER"));
+        try {
+            replicate();
+            signIn(user.getId());
+            transaction(false).executeWithoutResult(status -> teamRepository.findById(user.getId()).orElseThrow()
+                    .setName("Renamed"));
+            Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+            cache.evictAllRegions();
+
+            // Another user reads the team from the replica, which has not seen the change
+            signIn(1004);
+            assertNotEquals("Renamed", teamService.getByIdWithPlayers(user.getId()).getName());
+            assertFalse(cache.containsEntity(Team.class, user.getId()));
+
+            // The writer reads from the primary, which warms the caches
+            signIn(user.getId());
+            assertEquals("Renamed", teamService.getByIdWithPlayers(user.getId()).getName());
+            assertTrue(cache.containsEntity(Team.class, user.getId()));
+
+            // The warm caches answer before the replica
+            signIn(1004);
+            assertEquals("Renamed", teamService.getByIdWithPlayers(user.getId()).getName());
+        } finally {
+            SecurityContextHolder.clearContext();
+            userService.delete(user.getId());
+        }
+    }
+
+    private String servingPool(boolean readOnly) {
+        return transaction(readOnly).execute(status -> {
+            teamRepository.count();
+            return activePool();
+        });
+    }
+
+    private String activePool() {
+        int primary = active(primaryDataSource);
+        int replica = active(replicaDataSource);
+        assertEquals(1, primary + replica);
+        return primary == 1 ? "primary" : "replica";
+    }
+
+    private TransactionTemplate transaction(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate;
+    }
+
+    // The replica catches up with the primary
+    private void replicate() throws SQLException {
+        try (Connection primary = primaryDataSource.getConnection();
+             Connection replica = DriverManager.getConnection(REPLICA_URL, primaryDataSource.getUsername(), primaryDataSource.getPassword());
+             Statement primaryStatement = primary.createStatement();
+             Statement replicaStatement = replica.createStatement();
+             ResultSet script = primaryStatement.executeQuery("SCRIPT")) {
+            replicaStatement.execute("DROP ALL OBJECTS");
+            while (script.next()) {
+                replicaStatement.execute(script.getString(1));
+            }
+        }
+    }
+
+    private static int active(HikariDataSource dataSource) {
+        // The pool starts with its first connection
+        return dataSource.getHikariPoolMXBean() != null ? dataSource.getHikariPoolMXBean().getActiveConnections() : 0;
+    }
+
+    private static void signIn(long userId) {
+        UserInfo user = new UserInfo(userId, "user" + userId + "@xyz.com", Role.ROLE_USER, Status.ACTIVE);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -0,0 +1,58 @@
+package com.toptal.soccermanager.configuration;
+
+import com.toptal.soccermanager.configuration.metrics.StatementBudgetExceededException;
+import com.toptal.soccermanager.configuration.metrics.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCounterTest {
+    private static final String SQL = "select 1";
+
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    public void setUp() {
+        statementCounter = new StatementCounter();
+        ReflectionTestUtils.setField(statementCounter, "defaultBudget", 2);
+    }
+
+    @Test
+    public void testCount() {
+        statementCounter.inspect(SQL);
+        statementCounter.start();
+        statementCounter.inspect(SQL);
+        statementCounter.inspect(SQL);
+        statementCounter.inspect(SQL);
+
+        assertEquals(2, statementCounter.getBudget());
+        assertEquals(3, statementCounter.stop());
+        assertEquals(-1, statementCounter.stop());
+        assertEquals(-1, statementCounter.getBudget());
+    }
+
+    @Test
+    public void testFailOverBudget() {
+        ReflectionTestUtils.setField(statementCounter, "failOnExceeded", true);
+        statementCounter.start();
+        statementCounter.inspect(SQL);
+        statementCounter.inspect(SQL);
+
+        assertThrows(StatementBudgetExceededException.class, () -> statementCounter.inspect(SQL));
+        statementCounter.stop();
+    }
+
+    @Test
+    public void testHandlerBudget() {
+        ReflectionTestUtils.setField(statementCounter, "failOnExceeded", true);
+        statementCounter.start();
+        statementCounter.setBudget(3);
+        statementCounter.inspect(SQL);
+        statementCounter.inspect(SQL);
+        statementCounter.inspect(SQL);
+
+        assertEquals(3, statementCounter.stop());
+    }
+}
@@ -1,9 +1,13 @@
 package com.toptal.soccermanager.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.AuthDto;
 import com.toptal.soccermanager.model.dto.CredentialDto;
+import com.toptal.soccermanager.model.dto.RefreshTokenDto;
 import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.service.TokenService;
 import com.toptal.soccermanager.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,13 +18,20 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -31,7 +42,7 @@ public class AuthenticationControllerTest {
     private UserService userService;
 
     @MockBean
-    private JwtUtils jwtUtils;
+    private TokenService tokenService;
 
     @Autowired
     private MockMvc mockMvc;
@@ -44,22 +55,97 @@ public class AuthenticationControllerTest {
         mockedUser.setId(1L);
 
         String mockedToken = "MockedToken";
-        when(userService.login(any(CredentialDto.class))).thenReturn(mockedUser);
-        when(jwtUtils.getJwtToken(mockedUser)).thenReturn(mockedToken);
+        when(userService.login(any(CredentialDto.class), any())).thenReturn(CompletableFuture.completedFuture(mockedUser));
+        when(tokenService.issue(mockedUser)).thenReturn(new AuthDto(1L, 1L, mockedToken, 900, "MockedRefreshToken"));
 
         CredentialDto credential = new CredentialDto();
         credential.setEmail("abc@xyz.com");
         credential.setPassword("pwd");
 
-        mockMvc.perform(post("/auth/token")
+        MvcResult result = mockMvc.perform(post("/auth/token")
                     .contentType(MediaType.APPLICATION_JSON)
                     .accept(MediaType.APPLICATION_JSON)
                     .content(mapper.writeValueAsString(credential)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("userId").value(1L))
                 .andExpect(MockMvcResultMatchers.jsonPath("teamId").value(1L))
-                .andExpect(MockMvcResultMatchers.jsonPath("token").value(mockedToken));
+                .andExpect(MockMvcResultMatchers.jsonPath("token").value(mockedToken))
+                .andExpect(MockMvcResultMatchers.jsonPath("expiresIn").value(900))
+                .andExpect(MockMvcResultMatchers.jsonPath("refreshToken").value("MockedRefreshToken"));
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        when(tokenService.refresh("MockedRefreshToken")).thenReturn(new AuthDto(1L, 1L, "MockedToken", 900, "NextRefreshToken"));
+
+        mockMvc.perform(post("/auth/refresh")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(new RefreshTokenDto("MockedRefreshToken"))))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("token").value("MockedToken"))
+                .andExpect(MockMvcResultMatchers.jsonPath("refreshToken").value("NextRefreshToken"));
+    }
+
+    @Test
+    public void testRefresh_invalid() throws Exception {
+        when(tokenService.refresh("MockedRefreshToken")).thenThrow(new ApplicationException(ApplicationError.REFRESH_TOKEN_INVALID));
+
+        mockMvc.perform(post("/auth/refresh")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(new RefreshTokenDto("MockedRefreshToken"))))
+                .andExpect(status().isUnauthorized())
+                .andExpect(MockMvcResultMatchers.jsonPath("error").value("REFRESH_TOKEN_INVALID"));
+    }
+
+    @Test
+    public void testRevoke() throws Exception {
+        mockMvc.perform(post("/auth/revoke")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(new RefreshTokenDto("MockedRefreshToken"))))
+                .andExpect(status().isNoContent());
+
+        verify(tokenService).revoke("MockedRefreshToken");
+    }
+
+    @Test
+    public void testLogin_invalidPassword() throws Exception {
+        when(userService.login(any(CredentialDto.class), any())).thenReturn(CompletableFuture.failedFuture(
+                new CompletionException(new ApplicationException(ApplicationError.USER_CREDENTIALS_INVALID, "Remaining login attempts: 2"))));
+
+        CredentialDto credential = new CredentialDto("abc@xyz.com", "pwd");
+
+        MvcResult result = mockMvc.perform(post("/auth/token")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(credential)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("error").value("USER_CREDENTIALS_INVALID"))
+                .andExpect(MockMvcResultMatchers.jsonPath("message").value("Remaining login attempts: 2"));
+    }
+
+    @Test
+    public void testLogin_unavailable() throws Exception {
+        when(userService.login(any(CredentialDto.class), any())).thenThrow(new ApplicationException(ApplicationError.LOGIN_UNAVAILABLE));
+
+        CredentialDto credential = new CredentialDto("abc@xyz.com", "pwd");
+
+        mockMvc.perform(post("/auth/token")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(credential)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.jsonPath("error").value("LOGIN_UNAVAILABLE"));
     }
 
     @Test
@@ -0,0 +1,196 @@
+package com.toptal.soccermanager.controller;
+
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import com.toptal.soccermanager.service.PlayerService;
+import com.toptal.soccermanager.service.TeamService;
+import com.toptal.soccermanager.service.TransferService;
+import com.toptal.soccermanager.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Entity tags of teams, players and listings against the in-memory database: a conditional GET is answered
+ * with 304 until the team, one of its players or one of their listings changes.
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class ConditionalGetTest {
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserDto seller;
+    private UserDto buyer;
+    private long playerId;
+    private long transferId;
+
+    @BeforeEach
+    public void setUp() throws ApplicationException {
+        seller = userService.create(new UserCreateDto("etag-seller@xyz.com", PASSWORD, "Seller", "ROLE_USER"));
+        buyer = userService.create(new UserCreateDto("etag-buyer@xyz.com", PASSWORD, "Buyer", "ROLE_USER"));
+
+        List<PlayerDto> players = playerService.getAll(new PagingDataReqDto(0, 3, null), seller.getId()).getData();
+        playerId = players.get(0).getId();
+        transferId = transferService.create(new TransferCreateDto(players.get(1).getId(), 1000000), seller.getId()).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transferRepository.deleteAllInBatch();
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testTeamNotModifiedUntilPlayerChanges() throws Exception {
+        String teamUrl = "/teams/" + seller.getId() + "?with_players=true";
+        String eTag = getETag(teamUrl, seller);
+
+        mockMvc.perform(get(teamUrl).header(HttpHeaders.AUTHORIZATION, bearer(seller)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        playerService.update(playerId, new PlayerUpdateDto("Renamed", null, null), seller.getId());
+
+        MvcResult changed = mockMvc.perform(get(teamUrl).header(HttpHeaders.AUTHORIZATION, bearer(seller)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getResponse().getContentAsString().contains("Renamed"));
+    }
+
+    @Test
+    public void testTeamTagsDifferWithPlayers() throws Exception {
+        String withPlayers = getETag("/teams/" + seller.getId() + "?with_players=true", seller);
+        String withoutPlayers = getETag("/teams/" + seller.getId(), seller);
+
+        assertNotEquals(withPlayers, withoutPlayers);
+        mockMvc.perform(get("/teams/" + seller.getId()).header(HttpHeaders.AUTHORIZATION, bearer(seller)).header(HttpHeaders.IF_NONE_MATCH, withPlayers))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testWeakAndListedTagsMatch() throws Exception {
+        String playerUrl = "/teams/" + seller.getId() + "/players/" + playerId;
+        String eTag = getETag(playerUrl, seller);
+
+        mockMvc.perform(get(playerUrl).header(HttpHeaders.AUTHORIZATION, bearer(seller)).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(playerUrl).header(HttpHeaders.AUTHORIZATION, bearer(seller)).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    public void testTransferChangesWithAskPrice() throws Exception {
+        String transferUrl = "/transfers/" + transferId;
+        String eTag = getETag(transferUrl, buyer);
+
+        mockMvc.perform(get(transferUrl).header(HttpHeaders.AUTHORIZATION, bearer(buyer)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        transferService.update(transferId, new TransferUpdateDto(1200000), seller.getId());
+
+        mockMvc.perform(get(transferUrl).header(HttpHeaders.AUTHORIZATION, bearer(buyer)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testTransferPageChangesWithMarket() throws Exception {
+        String pageUrl = "/transfers?page=0&size=10";
+        String eTag = getETag(pageUrl, buyer);
+
+        mockMvc.perform(get(pageUrl).header(HttpHeaders.AUTHORIZATION, bearer(buyer)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // The team of the listed player is renamed, the listings themselves stay the same
+        List<PlayerDto> players = playerService.getAll(new PagingDataReqDto(0, 3, null), seller.getId()).getData();
+        teamService.update(seller.getId(), new TeamUpdateDto("Renamed", null));
+
+        String renamedTag = getETag(pageUrl, buyer);
+        assertNotEquals(eTag, renamedTag);
+
+        transferService.create(new TransferCreateDto(players.get(2).getId(), 3000000), seller.getId());
+        assertNotEquals(renamedTag, getETag(pageUrl, buyer));
+    }
+
+    @Test
+    public void testPurchaseChangesTagsOfBothTeams() throws Exception {
+        String sellerTag = getETag("/teams/" + seller.getId(), seller);
+        String buyerTag = getETag("/teams/" + buyer.getId(), buyer);
+
+        transferService.delete(transferId, buyer.getId());
+
+        assertNotEquals(sellerTag, getETag("/teams/" + seller.getId(), seller));
+        assertNotEquals(buyerTag, getETag("/teams/" + buyer.getId(), buyer));
+        mockMvc.perform(get("/transfers/" + transferId).header(HttpHeaders.AUTHORIZATION, bearer(buyer)).header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String getETag(String url, UserDto user) throws Exception {
+        String eTag = mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        return eTag;
+    }
+
+    private String bearer(UserDto user) {
+        return "Bearer " + jwtUtils.getJwtToken(user);
+    }
+}
@@ -0,0 +1,283 @@
+package com.toptal.soccermanager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toptal.soccermanager.configuration.authentication.JwtUtils;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.configuration.metrics.RequestMetricsFilter;
+import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import com.toptal.soccermanager.service.PlayerService;
+import com.toptal.soccermanager.service.TransferService;
+import com.toptal.soccermanager.service.UserService;
+import com.toptal.soccermanager.utils.WithMockPrincipal;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of SQL statements of every endpoint against the in-memory database,
+ * so a new query per row or an extra round trip shows up as a failing count.
+ * The h2 profile also fails any request going over its statement budget.
+ * Counts are those of a cold second-level cache, reads served by the cache are covered by SecondLevelCacheTest.
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+public class ControllerStatementCountTest {
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UserDto seller;
+    private UserDto buyer;
+    private long playerId;
+    private long transferId;
+
+    @BeforeEach
+    public void setUp() throws ApplicationException {
+        seller = userService.create(new UserCreateDto("seller@xyz.com", PASSWORD, "Seller", "ROLE_USER"));
+        buyer = userService.create(new UserCreateDto("buyer@xyz.com", PASSWORD, "Buyer", "ROLE_USER"));
+
+        List<PlayerDto> players = playerService.getAll(new PagingDataReqDto(0, 2, null), seller.getId()).getData();
+        playerId = players.get(0).getId();
+        transferId = transferService.create(new TransferCreateDto(players.get(1).getId(), 1000000), seller.getId()).getId();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transferRepository.deleteAllInBatch();
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testLogin() throws Exception {
+        assertStatements(1, perform(post("/auth/token"), null, new CredentialDto("seller@xyz.com", PASSWORD)));
+    }
+
+    @Test
+    public void testCreateUser() throws Exception {
+        // Ids come from pooled sequences, a signup also fetches a block of them every few teams, depending on the tests run before
+        MvcResult result = perform(post("/users"), null, new UserCreateDto("new@xyz.com", PASSWORD, "New", "ROLE_USER"));
+        long statements = (long) result.getRequest().getAttribute(RequestMetricsFilter.STATEMENTS_ATTRIBUTE);
+        assertTrue(statements >= 4 && statements <= 6, "POST /users ran " + statements + " statements");
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testCreateUsers() throws Exception {
+        List<UserCreateDto> users = Arrays.asList(
+                new UserCreateDto("new1@xyz.com", PASSWORD, "New", "ROLE_USER"),
+                new UserCreateDto("new2@xyz.com", PASSWORD, "New", "ROLE_USER"),
+                new UserCreateDto("new3@xyz.com", PASSWORD, "New", "ROLE_USER"));
+        assertStatements(5, perform(post("/users/bulk"), null, users));
+    }
+
+    @Test
+    public void testGetUser() throws Exception {
+        assertStatements(1, perform(get("/users/" + seller.getId()), seller, null));
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testGetUsers() throws Exception {
+        assertStatements(1, perform(get("/users"), null, null));
+        assertStatements(1, perform(get("/users?page=0&size=10"), null, null));
+        assertStatements(1, perform(get("/users?size=10&after="), null, null));
+    }
+
+    @Test
+    public void testUpdateUser() throws Exception {
+        assertStatements(2, perform(patch("/users/" + seller.getId()), seller, new UserUpdateDto(null, null, "Renamed", null, null)));
+    }
+
+    @Test
+    public void testDeleteUser() throws Exception {
+        assertStatements(6, perform(delete("/users/" + buyer.getId()), buyer, null));
+    }
+
+    @Test
+    public void testGetTeam() throws Exception {
+        assertStatements(1, perform(get("/teams/" + seller.getId()), seller, null));
+        assertStatements(1, perform(get("/teams/" + seller.getId() + "?with_players=true"), seller, null));
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testGetTeams() throws Exception {
+        assertStatements(1, perform(get("/teams"), null, null));
+        assertStatements(1, perform(get("/teams?page=0&size=10"), null, null));
+        assertStatements(1, perform(get("/teams?size=10&after="), null, null));
+    }
+
+    @Test
+    public void testUpdateTeam() throws Exception {
+        assertStatements(2, perform(patch("/teams/" + seller.getId()), seller, new TeamUpdateDto("Renamed", null)));
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testDeleteTeam() throws Exception {
+        assertStatements(5, perform(delete("/teams/" + buyer.getId()), null, null));
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testCreatePlayer() throws Exception {
+        PlayerCreateDto player = new PlayerCreateDto("First", "Last", "Spain", 25, "Defender", 1000000);
+        assertStatements(3, perform(post("/teams/" + seller.getId() + "/players"), null, player));
+    }
+
+    @Test
+    public void testGetPlayer() throws Exception {
+        assertStatements(1, perform(get("/teams/" + seller.getId() + "/players/" + playerId), seller, null));
+    }
+
+    @Test
+    public void testGetPlayers() throws Exception {
+        assertStatements(1, perform(get("/teams/" + seller.getId() + "/players"), seller, null));
+        assertStatements(3, perform(get("/teams/" + seller.getId() + "/players?page=0&size=10"), seller, null));
+        assertStatements(1, perform(get("/teams/" + seller.getId() + "/players?size=10&after="), seller, null));
+    }
+
+    @Test
+    public void testUpdatePlayer() throws Exception {
+        assertStatements(3, perform(patch("/teams/" + seller.getId() + "/players/" + playerId), seller,
+                new PlayerUpdateDto("Renamed", null, null)));
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testDeletePlayer() throws Exception {
+        // The team of the player is read again with its lock
+        assertStatements(4, perform(delete("/teams/" + seller.getId() + "/players/" + playerId), null, null));
+    }
+
+    @Test
+    public void testCreateTransfer() throws Exception {
+        assertStatements(6, perform(post("/teams/" + seller.getId() + "/transfers"), seller, new TransferCreateDto(playerId, 1500000)));
+    }
+
+    @Test
+    public void testUpdateTransfer() throws Exception {
+        assertStatements(5, perform(patch("/teams/" + seller.getId() + "/transfers/" + transferId), seller, new TransferUpdateDto(1200000)));
+    }
+
+    @Test
+    public void testBuyTransfer() throws Exception {
+        assertStatements(7, perform(delete("/teams/" + buyer.getId() + "/transfers/" + transferId), buyer, null));
+    }
+
+    @Test
+    public void testCancelTransfer() throws Exception {
+        assertStatements(5, perform(delete("/teams/" + seller.getId() + "/transfers/" + transferId), seller, null));
+    }
+
+    @Test
+    public void testGetTransfer() throws Exception {
+        assertStatements(1, perform(get("/transfers/" + transferId), buyer, null));
+    }
+
+    @Test
+    public void testGetTransfers() throws Exception {
+        assertStatements(1, perform(get("/transfers"), buyer, null));
+        assertStatements(1, perform(get("/transfers?page=0&size=10"), buyer, null));
+        assertStatements(1, perform(get("/transfers?size=10&after="), buyer, null));
+    }
+
+    // Answered from the revision of the team, or of the page, alone
+    @Test
+    public void testConditionalGets() throws Exception {
+        assertStatements(1, performConditional(get("/teams/" + seller.getId() + "?with_players=true"), seller));
+        assertStatements(1, performConditional(get("/teams/" + seller.getId() + "/players/" + playerId), seller));
+        assertStatements(1, performConditional(get("/transfers/" + transferId), buyer));
+        assertStatements(1, performConditional(get("/transfers?page=0&size=10"), buyer));
+    }
+
+    @Test
+    public void testSearchTransfers() throws Exception {
+        MockHttpServletRequestBuilder search = get("/transfers/search")
+                .queryParam("position", "Goalkeeper")
+                .queryParam("playerName", "a")
+                .queryParam("maxAskPrice", "2000000");
+        assertStatements(1, perform(search, buyer, null));
+    }
+
+    // Sends the request with the token of the user, if any, and expects it to succeed
+    private MvcResult perform(MockHttpServletRequestBuilder request, UserDto user, Object body) throws Exception {
+        if (user != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtils.getJwtToken(user));
+        }
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+        }
+        return mockMvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+    }
+
+    // Sends the request again with the entity tag of its response and expects it not to be modified
+    private MvcResult performConditional(MockHttpServletRequestBuilder request, UserDto user) throws Exception {
+        String eTag = perform(request, user, null).getResponse().getHeader(HttpHeaders.ETAG);
+        return mockMvc.perform(request.header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified()).andReturn();
+    }
+
+    private void assertStatements(long expected, MvcResult result) {
+        assertEquals(expected, result.getRequest().getAttribute(RequestMetricsFilter.STATEMENTS_ATTRIBUTE),
+                result.getRequest().getMethod() + " " + result.getRequest().getRequestURI());
+    }
+}
@@ -18,11 +18,14 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -112,13 +115,17 @@ public class TeamControllerTest {
     @Test
     @WithMockPrincipal(role = "ROLE_ADMIN")
     public void testGetAllWithoutPagination() throws Exception {
-        List<TeamDto> returnedTeams = new ArrayList<>();
-        when(teamService.getAll()).thenReturn(returnedTeams);
+        List<TeamDto> returnedTeams = new ArrayList<>(Arrays.asList(new TeamDto(), new TeamDto()));
+        doAnswer(invocation -> {
+            Consumer<TeamDto> consumer = invocation.getArgument(0);
+            returnedTeams.forEach(consumer);
+            return null;
+        }).when(teamService).streamAll(any());
 
         mockMvc.perform(get("/teams")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(jsonPath("$", hasSize(2)));
     }
 
     @Test
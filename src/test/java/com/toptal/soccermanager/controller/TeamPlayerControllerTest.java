@@ -16,10 +16,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -162,7 +164,11 @@ public class TeamPlayerControllerTest {
     @WithMockPrincipal
     public void testGetAllWithTeamIdWithoutPagination() throws Exception {
         List<PlayerDto> returnedPlayers = new ArrayList<>();
-        when(playerService.getAll(1L)).thenReturn(returnedPlayers);
+        doAnswer(invocation -> {
+            Consumer<PlayerDto> consumer = invocation.getArgument(1);
+            returnedPlayers.forEach(consumer);
+            return null;
+        }).when(playerService).streamAll(eq(1L), any());
 
         mockMvc.perform(get("/teams/{teamId}/players", 1L)
                         .accept(MediaType.APPLICATION_JSON))
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.toptal.soccermanager.model.dto.PagingDataReqDto;
 import com.toptal.soccermanager.model.dto.PagingDataRespDto;
 import com.toptal.soccermanager.model.dto.TransferDto;
+import com.toptal.soccermanager.model.dto.TransferFilterDto;
 import com.toptal.soccermanager.service.TransferService;
 import com.toptal.soccermanager.utils.WithMockPrincipal;
 import org.junit.jupiter.api.Test;
@@ -18,10 +19,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -95,15 +98,66 @@ public class TransferControllerTest {
         verify(transferService).getAll(eq(new PagingDataReqDto(0, 100)));
     }
 
+    @Test
+    @WithMockPrincipal
+    public void testGetAllWithCursor() throws Exception {
+        PagingDataRespDto<TransferDto> pageResult = new PagingDataRespDto<>(new ArrayList<>(), "next");
+        when(transferService.getAll(any(PagingDataReqDto.class))).thenReturn(pageResult);
+
+        mockMvc.perform(get("/transfers")
+                        .queryParam("after", "cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next").value("next"))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        verify(transferService).getAll(eq(new PagingDataReqDto(0, 50, "cursor")));
+    }
+
     @Test
     @WithMockPrincipal
     public void testGetAllWithoutPagination() throws Exception {
         List<TransferDto> returnedTeams = new ArrayList<>();
-        when(transferService.getAll()).thenReturn(returnedTeams);
+        doAnswer(invocation -> {
+            Consumer<TransferDto> consumer = invocation.getArgument(0);
+            returnedTeams.forEach(consumer);
+            return null;
+        }).when(transferService).streamAll(any());
 
         mockMvc.perform(get("/transfers")
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(0)));
     }
+
+    @Test
+    @WithMockPrincipal
+    public void testSearch() throws Exception {
+        PagingDataRespDto<TransferDto> pageResult = new PagingDataRespDto<>();
+        when(transferService.search(any(TransferFilterDto.class), any(PagingDataReqDto.class))).thenReturn(pageResult);
+
+        mockMvc.perform(get("/transfers/search")
+                        .queryParam("country", "Spain")
+                        .queryParam("position", "Attacker")
+                        .queryParam("teamName", "Real")
+                        .queryParam("maxAskPrice", "1500000")
+                        .queryParam("size", "10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(pageResult));
+
+        verify(transferService).search(eq(new TransferFilterDto("Spain", "Real", null, "Attacker", null, 1500000.0, null, null)),
+                eq(new PagingDataReqDto(0, 10)));
+    }
+
+    @Test
+    @WithMockPrincipal
+    public void testSearch_invalidParameters() throws Exception {
+        mockMvc.perform(get("/transfers/search")
+                        .queryParam("position", "Striker")
+                        .queryParam("minAskPrice", "-1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("REQUEST_PARAMETERS_NOT_VALID"));
+    }
 }
@@ -17,9 +17,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -82,6 +84,71 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.errorFields", hasSize(4)));
     }
 
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testCreateAll() throws Exception {
+        UserCreateDto createdUserDto = new UserCreateDto("abc@xyz.com", "test", "Test Name", "ROLE_USER");
+        UserCreateDto anotherUserDto = new UserCreateDto("def@xyz.com", "test", "Test Name", "ROLE_USER");
+        List<UserDto> returnedUsers = Arrays.asList(getUserDto(1L), getUserDto(2L));
+
+        when(userService.createAll(any())).thenReturn(returnedUsers);
+
+        mockMvc.perform(post("/users/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(Arrays.asList(createdUserDto, anotherUserDto))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].id").value(2L));
+
+        verify(userService).createAll(eq(Arrays.asList(createdUserDto, anotherUserDto)));
+    }
+
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testCreateAll_invalidParameters() throws Exception {
+        UserCreateDto createdUserDto = new UserCreateDto("123", " ", "Test Name", "ROLE_USER");
+
+        mockMvc.perform(post("/users/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(Arrays.asList(createdUserDto))))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).createAll(any());
+    }
+
+    // Each user costs a password hash of about 100 ms, a batch stays within a few seconds of hashing
+    @Test
+    @WithMockPrincipal(role = "ROLE_ADMIN")
+    public void testCreateAll_cap() throws Exception {
+        assertEquals(50, UserController.MAX_BULK_USERS);
+        when(userService.createAll(any())).thenReturn(new ArrayList<>());
+
+        mockMvc.perform(post("/users/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(bulkUsers(UserController.MAX_BULK_USERS))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/users/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(bulkUsers(UserController.MAX_BULK_USERS + 1))))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, times(1)).createAll(any());
+    }
+
+    @Test
+    @WithMockPrincipal
+    public void testCreateAll_forbidden() throws Exception {
+        mockMvc.perform(post("/users/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .content("[]"))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockPrincipal
     public void testGetById() throws Exception {
@@ -156,7 +223,11 @@ public class UserControllerTest {
     @WithMockPrincipal(role = "ROLE_ADMIN")
     public void testGetAllWithoutPagination() throws Exception {
         List<UserDto> returnedUsers = new ArrayList<>(Arrays.asList(getUserDto(1L)));
-        when(userService.getAll()).thenReturn(returnedUsers);
+        doAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            returnedUsers.forEach(consumer);
+            return null;
+        }).when(userService).streamAll(any());
 
         mockMvc.perform(get("/users")
                     .accept(MediaType.APPLICATION_JSON))
@@ -214,6 +285,14 @@ public class UserControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    private List<UserCreateDto> bulkUsers(int count) {
+        List<UserCreateDto> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(new UserCreateDto("bulk" + i + "@xyz.com", "test", "Test Name", "ROLE_USER"));
+        }
+        return users;
+    }
+
     private UserDto getUserDto(long id) {
         String email = "abc@xyz.com";
         String fullName = "John Smith";
@@ -0,0 +1,307 @@
+package com.toptal.soccermanager.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.CredentialDto;
+import com.toptal.soccermanager.model.dto.TransferCreateDto;
+import com.toptal.soccermanager.model.dto.UserCreateDto;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import com.toptal.soccermanager.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the application on a random port against the in-memory database, seeds users through UserService
+ * and drives a mix of listing, team reads, transfer listings, purchases, logins and signups over HTTP.
+ * Latency percentiles and throughput per endpoint are printed and written to target/load-test-report.txt.
+ * A second run bursts logins next to team reads and reports the connection pool usage as well.
+ *
+ * Excluded from the default build, run with: mvn -P load-test test
+ * Tuned with -Dload.users, -Dload.threads, -Dload.warmup and -Dload.duration (seconds).
+ */
+
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+public class ApiLoadTest {
+    private static final int USERS = Integer.getInteger("load.users", 50);
+    private static final int THREADS = Integer.getInteger("load.threads", 16);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration", 30);
+    private static final int PAGE_SIZE = 20;
+    private static final String PASSWORD = "password";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<VirtualUser> users = new ArrayList<>();
+    private final AtomicInteger signups = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        for (int i = 0; i < USERS; i++) {
+            users.add(seed("load" + i + "@xyz.com"));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transferRepository.deleteAllInBatch();
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testApiMix() throws Exception {
+        run(WARMUP_SECONDS, (user, random, worker) -> step(user, random));
+        recorder.reset();
+        run(DURATION_SECONDS, (user, random, worker) -> step(user, random));
+        recorder.stop();
+
+        String report = recorder.report();
+        System.out.println(report);
+        Files.writeString(Path.of("target", "load-test-report.txt"), report);
+
+        assertEquals(0, recorder.getServerErrors());
+    }
+
+    // Three quarters of the workers only log in, the others keep reading their team.
+    // Password checks hold no connection, so the readers never wait for one however many logins are going on
+    @Test
+    public void testLoginBurst() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        Step burst = (user, random, worker) -> {
+            if (worker % 4 != 0) {
+                login(user.email);
+            } else {
+                get("GET /teams/{id}", user, "/teams/" + user.id);
+            }
+        };
+        run(WARMUP_SECONDS, burst);
+        recorder.reset();
+
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger maxWaiting = new AtomicInteger();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            maxActive.accumulateAndGet(pool.getHikariPoolMXBean().getActiveConnections(), Math::max);
+            maxWaiting.accumulateAndGet(pool.getHikariPoolMXBean().getThreadsAwaitingConnection(), Math::max);
+        }, 0, 5, TimeUnit.MILLISECONDS);
+        try {
+            run(DURATION_SECONDS, burst);
+        } finally {
+            sampler.shutdownNow();
+        }
+        recorder.stop();
+
+        String report = recorder.report() + String.format("connections: max %d in use of %d, max %d threads waiting%n",
+                maxActive.get(), pool.getMaximumPoolSize(), maxWaiting.get());
+        System.out.println(report);
+        Files.writeString(Path.of("target", "load-test-login-burst-report.txt"), report);
+
+        assertEquals(0, recorder.getServerErrors());
+        assertEquals(0, maxWaiting.get());
+        assertTrue(maxActive.get() < pool.getMaximumPoolSize());
+    }
+
+    private void run(int seconds, Step step) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        int threads = Math.min(THREADS, users.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                // Each worker drives its own share of the users, so their state is never shared between threads
+                List<VirtualUser> share = new ArrayList<>();
+                for (int u = t; u < users.size(); u += threads) {
+                    share.add(users.get(u));
+                }
+                Random random = new Random(t);
+                int worker = t;
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        step.run(share.get(random.nextInt(share.size())), random, worker);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void step(VirtualUser user, Random random) throws IOException, InterruptedException {
+        int action = random.nextInt(100);
+        if (action < 30) {
+            JsonNode page = get("GET /transfers?page", user, "/transfers?page=" + random.nextInt(3) + "&size=" + PAGE_SIZE);
+            if (page != null) {
+                user.listings.clear();
+                page.path("data").forEach(t -> {
+                    if (t.path("player").path("team").path("id").asLong() != user.id) {
+                        user.listings.add(t.path("id").asLong());
+                    }
+                });
+            }
+        } else if (action < 50) {
+            get("GET /teams/{id}", user, "/teams/" + user.id);
+        } else if (action < 60) {
+            refreshPlayers(user);
+        } else if (action < 70) {
+            if (!user.players.isEmpty()) {
+                long playerId = user.players.get(random.nextInt(user.players.size()));
+                TransferCreateDto listing = new TransferCreateDto(playerId, 500000 + random.nextInt(10) * 100000);
+                send("POST /teams/{id}/transfers", user, HttpRequest.newBuilder(uri("/teams/" + user.id + "/transfers"))
+                        .POST(json(listing)).header("Content-Type", "application/json"));
+            }
+        } else if (action < 80) {
+            if (!user.listings.isEmpty()) {
+                long transferId = user.listings.remove(random.nextInt(user.listings.size()));
+                send("DELETE /teams/{id}/transfers/{id}", user,
+                        HttpRequest.newBuilder(uri("/teams/" + user.id + "/transfers/" + transferId)).DELETE());
+            }
+        } else if (action < 90) {
+            get("GET /users/{id}", user, "/users/" + user.id);
+        } else if (action < 95) {
+            login(user.email);
+        } else {
+            UserCreateDto signup = new UserCreateDto("signup" + signups.incrementAndGet() + "@xyz.com", PASSWORD, "Load User", "ROLE_USER");
+            send("POST /users", null, HttpRequest.newBuilder(uri("/users"))
+                    .POST(json(signup)).header("Content-Type", "application/json"));
+        }
+    }
+
+    private VirtualUser seed(String email) throws ApplicationException, IOException, InterruptedException {
+        long id = userService.create(new UserCreateDto(email, PASSWORD, "Load User", "ROLE_USER")).getId();
+        VirtualUser user = new VirtualUser(id, email, login(email));
+        refreshPlayers(user);
+        return user;
+    }
+
+    private String login(String email) throws IOException, InterruptedException {
+        JsonNode auth = send("POST /auth/token", null, HttpRequest.newBuilder(uri("/auth/token"))
+                .POST(json(new CredentialDto(email, PASSWORD))).header("Content-Type", "application/json"));
+        return auth != null ? auth.path("token").asText() : null;
+    }
+
+    private void refreshPlayers(VirtualUser user) throws IOException, InterruptedException {
+        JsonNode page = get("GET /teams/{id}/players?page", user, "/teams/" + user.id + "/players?page=0&size=" + PAGE_SIZE);
+        if (page != null) {
+            user.players.clear();
+            page.path("data").forEach(p -> user.players.add(p.path("id").asLong()));
+        }
+    }
+
+    private JsonNode get(String endpoint, VirtualUser user, String path) throws IOException, InterruptedException {
+        return send(endpoint, user, HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    // Returns the parsed body of a successful response, null otherwise
+    private JsonNode send(String endpoint, VirtualUser user, HttpRequest.Builder request) throws IOException, InterruptedException {
+        if (user != null) {
+            request.header("Authorization", "Bearer " + user.token);
+        }
+        request.timeout(Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        int status;
+        String body;
+        try {
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (IOException ex) {
+            status = -1;
+            body = null;
+        }
+        recorder.record(endpoint, System.nanoTime() - start, status);
+
+        if (status < 200 || status >= 300 || body == null || body.isEmpty()) {
+            return null;
+        }
+        return objectMapper.readTree(body);
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body), StandardCharsets.UTF_8);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private interface Step {
+        void run(VirtualUser user, Random random, int worker) throws IOException, InterruptedException;
+    }
+
+    private static class VirtualUser {
+        private final long id;
+        private final String email;
+        private final String token;
+        private final List<Long> players = new ArrayList<>();
+        private final List<Long> listings = new ArrayList<>();
+
+        VirtualUser(long id, String email, String token) {
+            this.id = id;
+            this.email = email;
+            this.token = token;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.toptal.soccermanager.load;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the latency and status of every request per endpoint and reports percentiles and throughput.
+ */
+
+class LatencyRecorder {
+    private final Map<String, EndpointSamples> samples = new ConcurrentHashMap<>();
+    private volatile long startedAt = System.nanoTime();
+    private volatile long stoppedAt;
+
+    void record(String endpoint, long latencyNanos, int status) {
+        samples.computeIfAbsent(endpoint, e -> new EndpointSamples()).add(latencyNanos, status);
+    }
+
+    // Drops what was recorded so far, used at the end of the warm-up
+    void reset() {
+        samples.clear();
+        startedAt = System.nanoTime();
+    }
+
+    void stop() {
+        stoppedAt = System.nanoTime();
+    }
+
+    long getServerErrors() {
+        return samples.values().stream().mapToLong(EndpointSamples::getServerErrors).sum();
+    }
+
+    String report() {
+        double seconds = (stoppedAt - startedAt) / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-40s %9s %7s %7s %10s %9s %9s %9s%n",
+                "endpoint", "requests", "4xx", "5xx", "req/s", "p50 ms", "p99 ms", "max ms"));
+        new TreeMap<>(samples).forEach((endpoint, s) -> {
+            long[] latencies = s.getSortedLatencies();
+            report.append(String.format("%-40s %9d %7d %7d %10.1f %9.2f %9.2f %9.2f%n",
+                    endpoint, latencies.length, s.getClientErrors(), s.getServerErrors(), latencies.length / seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0));
+        });
+        report.append(String.format("measured for %.1f s%n", seconds));
+        return report.toString();
+    }
+
+    // Nearest-rank percentile in milliseconds
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    private static class EndpointSamples {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long clientErrors;
+        private long serverErrors;
+
+        synchronized void add(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (status >= 500 || status < 0) {
+                serverErrors++;
+            } else if (status >= 400) {
+                clientErrors++;
+            }
+        }
+
+        synchronized long[] getSortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        synchronized long getClientErrors() {
+            return clientErrors;
+        }
+
+        synchronized long getServerErrors() {
+            return serverErrors;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.toptal.soccermanager.repository;
+
+import com.toptal.soccermanager.configuration.cache.HibernateCacheConfiguration;
+import com.toptal.soccermanager.model.entity.*;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(HibernateCacheConfiguration.class)
+public class PlayerRepositoryTest {
+    private static final int NUMBER_OF_TEAMS = 3;
+    private static final int PLAYERS_PER_TEAM = 20;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private long firstTeamId;
+
+    @BeforeEach
+    public void setUp() {
+        for (int t = 0; t < NUMBER_OF_TEAMS; t++) {
+            User user = new User(0, "user" + t + "@xyz.com", "pwd", "User " + t, Role.ROLE_USER, Status.ACTIVE, 0, null);
+            Team team = new Team(0, "Team " + t, "Spain", Money.of(5000000), Money.ZERO, 0, user, new HashSet<>());
+            user.setTeam(team);
+            entityManager.persist(user);
+            entityManager.persist(team);
+            if (t == 0) {
+                firstTeamId = team.getId();
+            }
+
+            for (int p = 0; p < PLAYERS_PER_TEAM; p++) {
+                Position position = Position.values()[p % Position.values().length];
+                Player player = new Player(0, "First", "Last", "Spain", 25, position, Money.of(1000000), team, null);
+                entityManager.persist(player);
+                if (p % 4 == 0) {
+                    entityManager.persist(new Transfer(0, Money.of(1500000), player));
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindAllPlayers_touchesOnlyThePage() {
+        Page<Player> page = playerRepository.findAllPlayers(PageRequest.of(1, PAGE_SIZE, Sort.Direction.ASC, "position"));
+
+        assertEquals(NUMBER_OF_TEAMS * PLAYERS_PER_TEAM, page.getTotalElements());
+        assertEquals(PAGE_SIZE, page.getContent().size());
+        page.getContent().forEach(p -> {
+            assertTrue(Hibernate.isInitialized(p.getTeam()));
+            assertEquals(Position.Attacker, p.getPosition());
+        });
+
+        // page of ids, count and the players of the page
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(PAGE_SIZE + 1 + PAGE_SIZE, getExecutionRowCount());
+        assertEquals(PAGE_SIZE, statistics.getEntityStatistics(Player.class.getName()).getLoadCount());
+    }
+
+    @Test
+    public void testFindAllPlayersByTeamId_touchesOnlyThePage() {
+        Page<Player> page = playerRepository.findAllPlayersByTeamId(firstTeamId, PageRequest.of(0, PAGE_SIZE, Sort.Direction.ASC, "position"));
+
+        assertEquals(PLAYERS_PER_TEAM, page.getTotalElements());
+        assertEquals(PLAYERS_PER_TEAM / PAGE_SIZE, page.getTotalPages());
+        assertEquals(PAGE_SIZE, page.getContent().size());
+        page.getContent().forEach(p -> assertEquals(firstTeamId, p.getTeam().getId()));
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(PAGE_SIZE + 1 + PAGE_SIZE, getExecutionRowCount());
+        assertEquals(PAGE_SIZE, statistics.getEntityStatistics(Player.class.getName()).getLoadCount());
+    }
+
+    @Test
+    public void testFindAllPlayers_keepsPageOrder() {
+        Page<Player> page = playerRepository.findAllPlayers(PageRequest.of(0, PAGE_SIZE, Sort.Direction.DESC, "id"));
+
+        long[] ids = page.getContent().stream().mapToLong(Player::getId).toArray();
+        long[] sorted = Arrays.stream(ids).boxed().sorted((a, b) -> Long.compare(b, a)).mapToLong(Long::longValue).toArray();
+        assertArrayEquals(sorted, ids);
+    }
+
+    @Test
+    public void testFindAllPlayersByTeamId_emptyPage() {
+        Page<Player> page = playerRepository.findAllPlayersByTeamId(firstTeamId, PageRequest.of(10, PAGE_SIZE));
+
+        assertEquals(PLAYERS_PER_TEAM, page.getTotalElements());
+        assertTrue(page.getContent().isEmpty());
+    }
+
+    @Test
+    public void testStreamAllPlayersByTeamId_singleQuery() {
+        try (Stream<Player> players = playerRepository.streamAllPlayersByTeamId(firstTeamId)) {
+            assertEquals(PLAYERS_PER_TEAM, players.peek(p -> {
+                assertEquals(firstTeamId, p.getTeam().getId());
+                assertTrue(Hibernate.isInitialized(p.getTeam()));
+            }).count());
+        }
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private long getExecutionRowCount() {
+        return Arrays.stream(statistics.getQueries())
+                .mapToLong(q -> statistics.getQueryStatistics(q).getExecutionRowCount())
+                .sum();
+    }
+}
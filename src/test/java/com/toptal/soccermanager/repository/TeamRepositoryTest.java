@@ -0,0 +1,75 @@
+package com.toptal.soccermanager.repository;
+
+import com.toptal.soccermanager.configuration.cache.HibernateCacheConfiguration;
+import com.toptal.soccermanager.model.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(HibernateCacheConfiguration.class)
+public class TeamRepositoryTest {
+    private static final Money PLAYER_MARKET_VALUE = Money.of(1000000);
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private long consistentTeamId;
+    private long driftedTeamId;
+    private long emptyTeamId;
+
+    @BeforeEach
+    public void setUp() {
+        consistentTeamId = persistTeam("consistent@xyz.com", 3, Money.of(3000000));
+        driftedTeamId = persistTeam("drifted@xyz.com", 2, Money.of(5000000));
+        emptyTeamId = persistTeam("empty@xyz.com", 0, Money.ZERO);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testFindIdsWithMarketValueDrift() {
+        List<Long> driftedTeamIds = teamRepository.findIdsWithMarketValueDrift();
+
+        assertEquals(Collections.singletonList(driftedTeamId), driftedTeamIds);
+    }
+
+    @Test
+    public void testRecomputeMarketValue() {
+        assertEquals(1, teamRepository.recomputeMarketValue(Collections.singletonList(driftedTeamId)));
+        entityManager.clear();
+
+        assertEquals(Money.of(2000000), teamRepository.findById(driftedTeamId).orElseThrow().getMarketValue());
+        assertEquals(Money.of(3000000), teamRepository.findById(consistentTeamId).orElseThrow().getMarketValue());
+        assertEquals(Money.ZERO, teamRepository.findById(emptyTeamId).orElseThrow().getMarketValue());
+        assertTrue(teamRepository.findIdsWithMarketValueDrift().isEmpty());
+    }
+
+    private long persistTeam(String email, int numberOfPlayers, Money marketValue) {
+        User user = new User(0, email, "pwd", "User", Role.ROLE_USER, Status.ACTIVE, 0, null);
+        Team team = new Team(0, "Team", "Spain", Money.of(5000000), marketValue, 0, user, new HashSet<>());
+        user.setTeam(team);
+        entityManager.persist(user);
+        entityManager.persist(team);
+        for (int p = 0; p < numberOfPlayers; p++) {
+            entityManager.persist(new Player(0, "First", "Last", "Spain", 25, Position.Attacker, PLAYER_MARKET_VALUE, team, null));
+        }
+        return team.getId();
+    }
+}
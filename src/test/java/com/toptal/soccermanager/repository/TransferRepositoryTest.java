@@ -0,0 +1,131 @@
+package com.toptal.soccermanager.repository;
+
+import com.toptal.soccermanager.configuration.cache.HibernateCacheConfiguration;
+import com.toptal.soccermanager.model.entity.*;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(HibernateCacheConfiguration.class)
+public class TransferRepositoryTest {
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 10, Sort.Direction.ASC, "askPrice", "id");
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        Team madrid = persistTeam("madrid@xyz.com", "Real Madrid");
+        Team betis = persistTeam("betis@xyz.com", "Real Betis");
+        Team barcelona = persistTeam("barcelona@xyz.com", "Barcelona");
+
+        persistListing(madrid, "Karim", "Benzema", "France", Position.Attacker, 3000000, 4000000);
+        persistListing(madrid, "Luka", "Modric", "Croatia", Position.Midfielder, 2000000, 2500000);
+        persistListing(betis, "Sergio", "Canales", "Spain", Position.Midfielder, 1500000, 1000000);
+        persistListing(barcelona, "Pedri", "Gonzalez", "Spain", Position.Midfielder, 1000000, 3000000);
+        persistListing(barcelona, "Marc-Andre", "ter Stegen", "Germany", Position.Goalkeeper, 2500000, 2000000);
+        persistPlayer(barcelona, "Gavi", "Paez", "Spain", Position.Midfielder, 1000000);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testSearch_countryAndPosition() {
+        List<Transfer> transfers = search(Specification.where(TransferSpecifications.playerCountry("Spain"))
+                .and(TransferSpecifications.playerPosition(Position.Midfielder)));
+
+        assertEquals(Arrays.asList("Sergio", "Pedri"), firstNames(transfers));
+    }
+
+    @Test
+    public void testSearch_teamNamePrefixIgnoringCase() {
+        List<Transfer> transfers = search(Specification.where(TransferSpecifications.teamNameStartsWith("rEaL")));
+
+        assertEquals(Arrays.asList("Sergio", "Luka", "Karim"), firstNames(transfers));
+    }
+
+    @Test
+    public void testSearch_playerNamePrefix() {
+        assertEquals(Arrays.asList("Marc-Andre"), firstNames(search(Specification.where(TransferSpecifications.playerNameStartsWith("ter s")))));
+        assertEquals(Arrays.asList("Luka"), firstNames(search(Specification.where(TransferSpecifications.playerNameStartsWith("lu")))));
+        assertTrue(search(Specification.where(TransferSpecifications.playerNameStartsWith("%"))).isEmpty());
+        assertTrue(search(Specification.where(TransferSpecifications.playerNameStartsWith("Gavi"))).isEmpty());
+    }
+
+    @Test
+    public void testSearch_priceRanges() {
+        assertEquals(Arrays.asList("Sergio", "Marc-Andre"),
+                firstNames(search(Specification.where(TransferSpecifications.askPriceBetween(null, Money.of(2000000))))));
+        assertEquals(Arrays.asList("Marc-Andre", "Luka"),
+                firstNames(search(Specification.where(TransferSpecifications.askPriceBetween(Money.of(2000000), Money.of(2500000))))));
+        assertEquals(Arrays.asList("Marc-Andre", "Karim"),
+                firstNames(search(Specification.where(TransferSpecifications.marketValueBetween(Money.of(2500000), null)))));
+    }
+
+    @Test
+    public void testSearch_pageWithCount() {
+        Page<Transfer> page = transferRepository.findAll(Specification.where(TransferSpecifications.withPlayers())
+                        .and(TransferSpecifications.playerPosition(Position.Midfielder))
+                        .and(TransferSpecifications.teamNameStartsWith("Real")),
+                PageRequest.of(0, 1, Sort.Direction.ASC, "askPrice", "id"));
+
+        assertEquals(2, page.getTotalElements());
+        Transfer transfer = page.getContent().get(0);
+        assertTrue(Hibernate.isInitialized(transfer.getPlayer()));
+        assertTrue(Hibernate.isInitialized(transfer.getPlayer().getTeam()));
+        assertEquals("Real Betis", transfer.getPlayer().getTeam().getName());
+    }
+
+    private List<Transfer> search(Specification<Transfer> specification) {
+        return transferRepository.findAll(Specification.where(TransferSpecifications.withPlayers()).and(specification), FIRST_PAGE)
+                .getContent();
+    }
+
+    private List<String> firstNames(List<Transfer> transfers) {
+        return transfers.stream().map(t -> t.getPlayer().getFirstName()).collect(Collectors.toList());
+    }
+
+    private Team persistTeam(String email, String name) {
+        User user = new User(0, email, "pwd", "User", Role.ROLE_USER, Status.ACTIVE, 0, null);
+        Team team = new Team(0, name, "Spain", Money.of(5000000), Money.ZERO, 0, user, new HashSet<>());
+        user.setTeam(team);
+        entityManager.persist(user);
+        entityManager.persist(team);
+        return team;
+    }
+
+    private Player persistPlayer(Team team, String firstName, String lastName, String country, Position position, double marketValue) {
+        Player player = new Player(0, firstName, lastName, country, 25, position, Money.of(marketValue), team, null);
+        entityManager.persist(player);
+        return player;
+    }
+
+    private void persistListing(Team team, String firstName, String lastName, String country, Position position,
+                                double marketValue, double askPrice) {
+        Player player = persistPlayer(team, firstName, lastName, country, position, marketValue);
+        entityManager.persist(new Transfer(0, Money.of(askPrice), player));
+    }
+}
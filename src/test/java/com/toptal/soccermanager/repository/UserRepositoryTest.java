@@ -0,0 +1,65 @@
+package com.toptal.soccermanager.repository;
+
+import com.toptal.soccermanager.configuration.cache.HibernateCacheConfiguration;
+import com.toptal.soccermanager.model.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(HibernateCacheConfiguration.class)
+public class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private long userId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = new User(0, "login@xyz.com", "pwd", "User", Role.ROLE_USER, Status.ACTIVE, 0, null);
+        Team team = new Team(0, "Team", "Spain", Money.of(5000000), Money.ZERO, 0, user, new HashSet<>());
+        user.setTeam(team);
+        entityManager.persist(user);
+        entityManager.persist(team);
+        entityManager.flush();
+        entityManager.clear();
+        userId = user.getId();
+    }
+
+    @Test
+    public void testUpdateStatus() {
+        assertEquals(1, userRepository.updateStatus(userId, Status.BLOCKED));
+
+        assertEquals(Status.BLOCKED, reload().getStatus());
+    }
+
+    @Test
+    public void testResetLoginAttempts() {
+        User user = reload();
+        user.setLoginAttempts(2);
+        entityManager.merge(user);
+        entityManager.flush();
+
+        assertEquals(1, userRepository.resetLoginAttempts(userId));
+        assertEquals(0, reload().getLoginAttempts());
+    }
+
+    private User reload() {
+        entityManager.clear();
+        return userRepository.findById(userId).orElseThrow();
+    }
+}
@@ -3,6 +3,7 @@ package com.toptal.soccermanager.service;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Player;
 import com.toptal.soccermanager.model.entity.Position;
 import com.toptal.soccermanager.model.entity.Team;
@@ -20,7 +21,10 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -38,6 +42,9 @@ public class PlayerServiceImplTest {
     @Mock
     private Mapper mapper;
 
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private PlayerServiceImpl playerService;
 
@@ -53,8 +60,8 @@ public class PlayerServiceImplTest {
     private final String TEAM_COUNTRY = "Spain";
     private final double TEAM_BUDGET = 10000.0;
 
-    private final Team team = new Team(TEAM_ID, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, null, new HashSet<>());
-    private final Player player = new Player(ID, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
+    private final Team team = new Team(TEAM_ID, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.of(PLAYER_MARKET_VALUE), 0, null, new HashSet<>());
+    private final Player player = new Player(ID, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
     private final PlayerCreateDto createdPlayer = new PlayerCreateDto(FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, POSITION, PLAYER_MARKET_VALUE);
     private final PlayerUpdateDto updatedPlayer = new PlayerUpdateDto(FIRST_NAME, LAST_NAME, PLAYER_COUNTRY);
     private final PlayerDto returnedPlayer = new PlayerDto(ID, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, POSITION, String.valueOf(PLAYER_MARKET_VALUE), null, null);
@@ -62,7 +69,7 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testCreate() throws ApplicationException {
-        when(teamRepository.findById(TEAM_ID)).thenReturn(Optional.of(team));
+        when(teamRepository.findByIdForUpdate(TEAM_ID)).thenReturn(Optional.of(team));
         when(playerRepository.save(any(Player.class))).thenReturn(player);
         when(mapper.getPlayerDtoFromEntity(player, true, false)).thenReturn(returnedPlayer);
 
@@ -74,11 +81,12 @@ public class PlayerServiceImplTest {
         Player capturedPlayer = argumentCaptor.getValue();
         verifyPlayer(player, capturedPlayer);
         assertEquals(team, capturedPlayer.getTeam());
+        assertEquals(Money.of(2 * PLAYER_MARKET_VALUE), team.getMarketValue());
     }
 
     @Test
     public void testCreate_teamNotFound() {
-        when(teamRepository.findById(TEAM_ID)).thenReturn(Optional.empty());
+        when(teamRepository.findByIdForUpdate(TEAM_ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> playerService.create(createdPlayer, TEAM_ID));
         assertEquals(ApplicationError.TEAM_NOT_FOUND, ex.getApplicationError());
@@ -86,7 +94,7 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testGetById() throws ApplicationException {
-        when(playerRepository.findById(ID)).thenReturn(Optional.of(player));
+        when(playerRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(player));
         when(mapper.getPlayerDtoFromEntity(player, true, true)).thenReturn(returnedPlayer);
 
         PlayerDto actualPlayer = playerService.getById(ID, TEAM_ID);
@@ -95,7 +103,7 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testCheckPlayerWithTeamId_notPlayerFound() {
-        when(playerRepository.findById(ID)).thenReturn(Optional.empty());
+        when(playerRepository.findByIdWithTeam(ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> playerService.getById(ID, TEAM_ID));
         assertEquals(ApplicationError.PLAYER_NOT_FOUND, ex.getApplicationError());
@@ -103,7 +111,7 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testCheckPlayerWithTeamId_unAuthorized() {
-        when(playerRepository.findById(ID)).thenReturn(Optional.of(player));
+        when(playerRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(player));
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> playerService.getById(ID, 2L));
         assertEquals(ApplicationError.UNAUTHORIZED_USER_ERROR, ex.getApplicationError());
@@ -111,7 +119,7 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testGetAllWithPagination_withTeamId() throws ApplicationException {
-        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
+        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
         PlayerDto dummyPlayerDto = new PlayerDto(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, POSITION, String.valueOf(PLAYER_MARKET_VALUE), null, null);
         when(playerRepository.findAllPlayersByTeamId(eq(TEAM_ID), any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(player, dummyPlayer)));
         when(mapper.getPlayerDtoFromEntity(player, true, true)).thenReturn(returnedPlayer);
@@ -133,7 +141,7 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testGetAllWithPagination_withoutTeamId() throws ApplicationException {
-        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
+        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
         PlayerDto dummyPlayerDto = new PlayerDto(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, POSITION, String.valueOf(PLAYER_MARKET_VALUE), null, null);
         when(playerRepository.findAllPlayers(any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(player, dummyPlayer)));
         when(mapper.getPlayerDtoFromEntity(player, true, true)).thenReturn(returnedPlayer);
@@ -147,32 +155,34 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testGetAllWithoutPagination_withTeamId() {
-        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
+        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
         PlayerDto dummyPlayerDto = new PlayerDto(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, POSITION, String.valueOf(PLAYER_MARKET_VALUE), null, null);
-        when(playerRepository.findAllPlayersByTeamId(TEAM_ID)).thenReturn(new ArrayList<>(Arrays.asList(player, dummyPlayer)));
+        when(playerRepository.streamAllPlayersByTeamId(TEAM_ID)).thenReturn(Stream.of(player, dummyPlayer));
         when(mapper.getPlayerDtoFromEntity(player, true, true)).thenReturn(returnedPlayer);
         when(mapper.getPlayerDtoFromEntity(dummyPlayer, true, true)).thenReturn(dummyPlayerDto);
 
-        List<PlayerDto> actualPlayers = playerService.getAll(TEAM_ID);
+        List<PlayerDto> actualPlayers = new ArrayList<>();
+        playerService.streamAll(TEAM_ID, actualPlayers::add);
         assertEquals(2, actualPlayers.size());
     }
 
     @Test
     public void testGetAllWithoutPagination_withoutTeamId() {
-        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
+        Player dummyPlayer = new Player(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
         PlayerDto dummyPlayerDto = new PlayerDto(2L, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, POSITION, String.valueOf(PLAYER_MARKET_VALUE), null, null);
-        when(playerRepository.findAllPlayers()).thenReturn(new ArrayList<>(Arrays.asList(player, dummyPlayer)));
+        when(playerRepository.streamAllPlayers()).thenReturn(Stream.of(player, dummyPlayer));
         when(mapper.getPlayerDtoFromEntity(player, true, true)).thenReturn(returnedPlayer);
         when(mapper.getPlayerDtoFromEntity(dummyPlayer, true, true)).thenReturn(dummyPlayerDto);
 
-        List<PlayerDto> actualPlayers = playerService.getAll(null);
+        List<PlayerDto> actualPlayers = new ArrayList<>();
+        playerService.streamAll(null, actualPlayers::add);
         assertEquals(2, actualPlayers.size());
     }
 
     @Test
     public void testUpdate() throws ApplicationException {
-        Player dummyPlayer = new Player(ID, "Another First", "Another Last", "Italy", AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
-        when(playerRepository.findById(ID)).thenReturn(Optional.of(dummyPlayer));
+        Player dummyPlayer = new Player(ID, "Another First", "Another Last", "Italy", AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
+        when(playerRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(dummyPlayer));
         when(playerRepository.save(any(Player.class))).thenReturn(player);
         when(mapper.getPlayerDtoFromEntity(player, true, true)).thenReturn(returnedPlayer);
 
@@ -186,11 +196,13 @@ public class PlayerServiceImplTest {
 
     @Test
     public void testDelete() throws ApplicationException {
-        when(playerRepository.findById(ID)).thenReturn(Optional.of(player));
+        when(playerRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(player));
         doNothing().when(playerRepository).delete(player);
 
         boolean success = playerService.delete(ID, TEAM_ID);
         assertTrue(success);
+        verify(entityManager).refresh(team, LockModeType.PESSIMISTIC_WRITE);
+        assertEquals(Money.ZERO, team.getMarketValue());
     }
 
     private void verifyPlayerDto(PlayerDto expected, PlayerDto actual) {
@@ -0,0 +1,166 @@
+package com.toptal.soccermanager.service;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.configuration.metrics.StatementCounter;
+import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Player;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Detail reads of teams, players and transfers against the in-memory database, served by the
+ * second-level and query cache once loaded, and the cached squads after a player changed teams.
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class SecondLevelCacheTest {
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private long sellerId;
+    private long buyerId;
+    private long playerId;
+    private long transferId;
+
+    @BeforeEach
+    public void setUp() throws ApplicationException {
+        sellerId = userService.create(new UserCreateDto("cache-seller@xyz.com", PASSWORD, "Seller", "ROLE_USER")).getId();
+        buyerId = userService.create(new UserCreateDto("cache-buyer@xyz.com", PASSWORD, "Buyer", "ROLE_USER")).getId();
+
+        List<PlayerDto> players = playerService.getAll(new PagingDataReqDto(0, 2, null), sellerId).getData();
+        playerId = players.get(0).getId();
+        transferId = transferService.create(new TransferCreateDto(players.get(1).getId(), 1000000), sellerId).getId();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transferRepository.deleteAllInBatch();
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testDetailReadsServedFromCache() throws Exception {
+        assertStatements(1, () -> teamService.getByIdWithPlayers(sellerId));
+        assertStatements(1, () -> playerService.getById(playerId, sellerId));
+        assertStatements(1, () -> transferService.getById(transferId));
+
+        assertStatements(0, () -> teamService.getByIdWithPlayers(sellerId));
+        assertStatements(0, () -> playerService.getById(playerId, sellerId));
+        assertStatements(0, () -> transferService.getById(transferId));
+        assertStatements(0, () -> teamService.getByIdWithoutPlayers(sellerId));
+        assertEquals(20, teamService.getByIdWithPlayers(sellerId).getPlayers().size());
+    }
+
+    @Test
+    public void testPurchaseEvictsCachedSquads() throws Exception {
+        int sellerPlayers = teamService.getByIdWithPlayers(sellerId).getPlayers().size();
+        int buyerPlayers = teamService.getByIdWithPlayers(buyerId).getPlayers().size();
+        squad(sellerId);
+        squad(buyerId);
+
+        transferService.delete(transferId, buyerId);
+
+        TeamDto seller = teamService.getByIdWithPlayers(sellerId);
+        TeamDto buyer = teamService.getByIdWithPlayers(buyerId);
+        assertEquals(sellerPlayers - 1, seller.getPlayers().size());
+        assertEquals(buyerPlayers + 1, buyer.getPlayers().size());
+        assertTrue(buyer.getPlayers().stream().anyMatch(p -> p.getId() == transferId));
+        assertThrows(ApplicationException.class, () -> transferService.getById(transferId));
+
+        // Squads loaded through the cached collection of each team, without the query
+        assertFalse(squad(sellerId).contains(transferId));
+        assertTrue(squad(buyerId).contains(transferId));
+        assertEquals(sellerPlayers - 1, squad(sellerId).size());
+    }
+
+    @Test
+    public void testDeleteUserWithCachedSquad() throws Exception {
+        squad(buyerId);
+
+        assertTrue(userService.delete(buyerId));
+        assertFalse(teamRepository.existsById(buyerId));
+        // Only the players of the seller are left
+        assertEquals(teamService.getByIdWithPlayers(sellerId).getPlayers().size(), playerRepository.count());
+    }
+
+    @Test
+    public void testDeleteTeamWithCachedSquad() throws Exception {
+        squad(buyerId);
+
+        assertTrue(teamService.delete(buyerId));
+        assertFalse(teamRepository.existsById(buyerId));
+        assertEquals(teamService.getByIdWithPlayers(sellerId).getPlayers().size(), playerRepository.count());
+    }
+
+    private Set<Long> squad(long teamId) {
+        return transactionTemplate.execute(status -> teamRepository.findById(teamId).orElseThrow().getPlayers().stream()
+                .map(Player::getId)
+                .collect(Collectors.toSet()));
+    }
+
+    private void assertStatements(long expected, Read read) throws ApplicationException {
+        statementCounter.start();
+        try {
+            read.run();
+        } finally {
+            assertEquals(expected, statementCounter.stop());
+        }
+    }
+
+    private interface Read {
+        Object run() throws ApplicationException;
+    }
+}
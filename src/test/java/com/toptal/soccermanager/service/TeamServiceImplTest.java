@@ -1,17 +1,21 @@
 package com.toptal.soccermanager.service;
 
+import com.toptal.soccermanager.configuration.cache.SquadCache;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Role;
 import com.toptal.soccermanager.model.entity.Status;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.model.entity.User;
+import com.toptal.soccermanager.repository.PlayerRepository;
 import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
 import com.toptal.soccermanager.repository.UserRepository;
 import com.toptal.soccermanager.service.impl.TeamServiceImpl;
 import com.toptal.soccermanager.utils.Mapper;
-import com.toptal.soccermanager.utils.TeamPair;
+import com.toptal.soccermanager.utils.PageCursor;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -20,12 +24,16 @@ import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -37,9 +45,21 @@ public class TeamServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PlayerRepository playerRepository;
+
+    @Mock
+    private TransferRepository transferRepository;
+
     @Mock
     private Mapper mapper;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SquadCache squadCache;
+
     @InjectMocks
     private TeamServiceImpl teamService;
 
@@ -55,11 +75,10 @@ public class TeamServiceImplTest {
     private final double TEAM_MARKET_VALUE = 10000.0;
 
     private final User user = new User(ID, EMAIL, ENCODED_PASSWORD, FULL_NAME, Role.valueOf(ROLE), Status.valueOf(STATUS), 0, null);
-    private final Team team = new Team(ID, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, user, new HashSet<>());
-    private final TeamPair teamPair = new TeamPair(team, TEAM_MARKET_VALUE);
+    private final Team team = new Team(ID, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.of(TEAM_MARKET_VALUE), 0, user, new HashSet<>());
     private final TeamCreateDto createdTeam = new TeamCreateDto(TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET);
     private final TeamUpdateDto updatedTeam = new TeamUpdateDto(TEAM_NAME, TEAM_COUNTRY);
-    private final TeamDto returnedTeam = new TeamDto(ID, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>());
+    private final TeamDto returnedTeam = new TeamDto(ID, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>(), 0);
     private final PagingDataReqDto pageRequest = new PagingDataReqDto(0, 50);
 
     @Test
@@ -115,8 +134,8 @@ public class TeamServiceImplTest {
 
     @Test
     public void testGetByIdWithoutPlayers() throws ApplicationException {
-        when(teamRepository.findByIdWithoutPlayers(ID)).thenReturn(Optional.of(teamPair));
-        when(mapper.getTeamDtoFromEntity(teamPair.getTeam(), teamPair.getMarketValue())).thenReturn(returnedTeam);
+        when(teamRepository.findById(ID)).thenReturn(Optional.of(team));
+        when(mapper.getTeamDtoFromEntity(team, true, false, false)).thenReturn(returnedTeam);
 
         TeamDto actualTeam = teamService.getByIdWithoutPlayers(ID);
         verifyTeamDto(returnedTeam, actualTeam);
@@ -124,7 +143,7 @@ public class TeamServiceImplTest {
 
     @Test
     public void testGetByIdWithoutPlayers_teamNotFound() {
-        when(teamRepository.findByIdWithoutPlayers(ID)).thenReturn(Optional.empty());
+        when(teamRepository.findById(ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> teamService.getByIdWithoutPlayers(ID));
         assertEquals(ApplicationError.TEAM_NOT_FOUND, ex.getApplicationError());
@@ -132,8 +151,8 @@ public class TeamServiceImplTest {
 
     @Test
     public void testGetAllWithPagination() throws ApplicationException {
-        Team dummyTeam = new Team(2L, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, user, new HashSet<>());
-        TeamDto dummyTeamDto = new TeamDto(2L, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>());
+        Team dummyTeam = new Team(2L, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.of(TEAM_MARKET_VALUE), 0, user, new HashSet<>());
+        TeamDto dummyTeamDto = new TeamDto(2L, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>(), 0);
         when(teamRepository.findAll(any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(team, dummyTeam)));
         when(mapper.getTeamDtoFromEntity(team, false, false, false)).thenReturn(returnedTeam);
         when(mapper.getTeamDtoFromEntity(dummyTeam, false, false, false)).thenReturn(dummyTeamDto);
@@ -161,15 +180,56 @@ public class TeamServiceImplTest {
         assertEquals(0, pageResult.getData().size());
     }
 
+    @Test
+    public void testGetAllWithCursor() throws ApplicationException {
+        Team dummyTeam = new Team(2L, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.of(TEAM_MARKET_VALUE), 0, user, new HashSet<>());
+        TeamDto dummyTeamDto = new TeamDto(2L, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>(), 0);
+        String after = new PageCursor(TEAM_NAME, ID).encode();
+        when(teamRepository.findSliceAfter(eq(TEAM_NAME), eq(ID), any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(team, dummyTeam), PageRequest.of(0, 2), true));
+        when(mapper.getTeamDtoFromEntity(team, false, false, false)).thenReturn(returnedTeam);
+        when(mapper.getTeamDtoFromEntity(dummyTeam, false, false, false)).thenReturn(dummyTeamDto);
+
+        PagingDataRespDto<TeamDto> pageResult = teamService.getAll(new PagingDataReqDto(0, 2, after));
+        assertNull(pageResult.getTotalElements());
+        assertEquals(2, pageResult.getData().size());
+        assertEquals(new PageCursor(TEAM_NAME, 2L).encode(), pageResult.getNext());
+
+        ArgumentCaptor<PageRequest> argumentCaptor = ArgumentCaptor.forClass(PageRequest.class);
+        verify(teamRepository).findSliceAfter(eq(TEAM_NAME), eq(ID), argumentCaptor.capture());
+        PageRequest capturedRequest = argumentCaptor.getValue();
+        assertEquals(0, capturedRequest.getPageNumber());
+        assertEquals(2, capturedRequest.getPageSize());
+        verify(teamRepository, never()).findAll(any(PageRequest.class));
+    }
+
+    @Test
+    public void testGetAllWithCursor_lastPage() throws ApplicationException {
+        when(teamRepository.findSliceBy(any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(team), PageRequest.of(0, 2), false));
+        when(mapper.getTeamDtoFromEntity(team, false, false, false)).thenReturn(returnedTeam);
+
+        PagingDataRespDto<TeamDto> pageResult = teamService.getAll(new PagingDataReqDto(0, 2, ""));
+        assertEquals(1, pageResult.getData().size());
+        assertNull(pageResult.getNext());
+    }
+
+    @Test
+    public void testGetAllWithCursor_invalidCursor() {
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> teamService.getAll(new PagingDataReqDto(0, 2, "not-a-cursor")));
+        assertEquals(ApplicationError.FILTER_CRITERIA_ERROR, ex.getApplicationError());
+    }
+
     @Test
     public void testGetAllWithoutPagination() {
-        Team dummyTeam = new Team(2L, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, user, new HashSet<>());
-        TeamDto dummyTeamDto = new TeamDto(2L, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>());
-        when(teamRepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(team, dummyTeam)));
+        Team dummyTeam = new Team(2L, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.of(TEAM_MARKET_VALUE), 0, user, new HashSet<>());
+        TeamDto dummyTeamDto = new TeamDto(2L, TEAM_NAME, TEAM_COUNTRY, String.valueOf(TEAM_MARKET_VALUE), String.valueOf(TEAM_BUDGET), null, new HashSet<>(), 0);
+        when(teamRepository.streamAll()).thenReturn(Stream.of(team, dummyTeam));
         when(mapper.getTeamDtoFromEntity(team, false, false, false)).thenReturn(returnedTeam);
         when(mapper.getTeamDtoFromEntity(dummyTeam, false, false, false)).thenReturn(dummyTeamDto);
 
-        List<TeamDto> actualTeams = teamService.getAll();
+        List<TeamDto> actualTeams = new ArrayList<>();
+        teamService.streamAll(actualTeams::add);
         assertEquals(2, actualTeams.size());
         verifyTeamDto(returnedTeam, actualTeams.get(0));
         verifyTeamDto(dummyTeamDto, actualTeams.get(1));
@@ -177,19 +237,19 @@ public class TeamServiceImplTest {
 
     @Test
     public void testGetAllWithoutPagination_Empty() {
-        when(teamRepository.findAll()).thenReturn(new ArrayList<>());
+        when(teamRepository.streamAll()).thenReturn(Stream.empty());
 
-        List<TeamDto> actualTeams = teamService.getAll();
+        List<TeamDto> actualTeams = new ArrayList<>();
+        teamService.streamAll(actualTeams::add);
         assertEquals(0, actualTeams.size());
     }
 
     @Test
     public void testUpdate() throws ApplicationException {
-        Team dummyTeam = new Team(2L, "Another Team", "Italy", TEAM_BUDGET, user, new HashSet<>());
-        TeamPair dummyTeamPair = new TeamPair(dummyTeam, TEAM_MARKET_VALUE);
-        when(teamRepository.findByIdWithoutPlayers(ID)).thenReturn(Optional.of(dummyTeamPair));
+        Team dummyTeam = new Team(2L, "Another Team", "Italy", Money.of(TEAM_BUDGET), Money.of(TEAM_MARKET_VALUE), 0, user, new HashSet<>());
+        when(teamRepository.findById(ID)).thenReturn(Optional.of(dummyTeam));
         when(teamRepository.save(any(Team.class))).thenReturn(team);
-        when(mapper.getTeamDtoFromEntity(team, dummyTeamPair.getMarketValue())).thenReturn(returnedTeam);
+        when(mapper.getTeamDtoFromEntity(team, true, false, false)).thenReturn(returnedTeam);
 
         teamService.update(ID, updatedTeam);
 
@@ -201,12 +261,30 @@ public class TeamServiceImplTest {
 
     @Test
     public void testUpdate_teamNotFound() {
-        when(teamRepository.findByIdWithoutPlayers(ID)).thenReturn(Optional.empty());
+        when(teamRepository.findById(ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> teamService.update(ID, updatedTeam));
         assertEquals(ApplicationError.TEAM_NOT_FOUND, ex.getApplicationError());
     }
 
+    @Test
+    public void testReconcileMarketValues() {
+        List<Long> driftedTeamIds = Arrays.asList(ID, 2L);
+        when(teamRepository.findIdsWithMarketValueDrift()).thenReturn(driftedTeamIds);
+        when(teamRepository.recomputeMarketValue(driftedTeamIds)).thenReturn(2);
+
+        assertEquals(2, teamService.reconcileMarketValues());
+        verify(teamRepository).recomputeMarketValue(driftedTeamIds);
+    }
+
+    @Test
+    public void testReconcileMarketValues_noDrift() {
+        when(teamRepository.findIdsWithMarketValueDrift()).thenReturn(new ArrayList<>());
+
+        assertEquals(0, teamService.reconcileMarketValues());
+        verify(teamRepository, never()).recomputeMarketValue(any());
+    }
+
     @Test
     public void testDelete() throws ApplicationException {
         when(teamRepository.findById(ID)).thenReturn(Optional.of(team));
@@ -214,6 +292,9 @@ public class TeamServiceImplTest {
 
         boolean success = teamService.delete(ID);
         assertTrue(success);
+        verify(transferRepository).deleteAllByTeamId(ID);
+        verify(playerRepository).deleteAllByTeamId(ID);
+        verify(squadCache).evict(ID);
     }
 
     @Test
@@ -0,0 +1,184 @@
+package com.toptal.soccermanager.service;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.AuthDto;
+import com.toptal.soccermanager.model.dto.UserCreateDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.model.dto.UserUpdateDto;
+import com.toptal.soccermanager.model.entity.Status;
+import com.toptal.soccermanager.repository.RefreshTokenRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rotation and revocation of refresh tokens against the database, including concurrent exchanges of the same token.
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class TokenServiceTest {
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UserDto user;
+
+    @BeforeEach
+    public void setUp() throws ApplicationException {
+        user = userService.create(new UserCreateDto("refresh@xyz.com", "password", "Refresh User", "ROLE_USER"));
+    }
+
+    @AfterEach
+    public void tearDown() throws ApplicationException {
+        userService.delete(user.getId());
+    }
+
+    @Test
+    public void testRefreshRotatesToken() throws ApplicationException {
+        AuthDto login = tokenService.issue(user);
+
+        AuthDto refreshed = tokenService.refresh(login.getRefreshToken());
+
+        assertEquals(user.getId(), refreshed.getUserId());
+        assertNotNull(refreshed.getToken());
+        assertNotEquals(login.getRefreshToken(), refreshed.getRefreshToken());
+        assertNotNull(tokenService.refresh(refreshed.getRefreshToken()).getRefreshToken());
+    }
+
+    @Test
+    public void testReuseRevokesFamily() throws ApplicationException {
+        AuthDto login = tokenService.issue(user);
+        AuthDto refreshed = tokenService.refresh(login.getRefreshToken());
+        AuthDto otherLogin = tokenService.issue(user);
+
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+
+        // The token rotated from the reused one goes too, another login of the user does not
+        assertRefreshFails(refreshed.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+        assertNotNull(tokenService.refresh(otherLogin.getRefreshToken()));
+    }
+
+    @Test
+    public void testRevoke() throws ApplicationException {
+        AuthDto login = tokenService.issue(user);
+
+        tokenService.revoke(login.getRefreshToken());
+
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+        // Unknown tokens are ignored
+        tokenService.revoke("unknown");
+    }
+
+    @Test
+    public void testUnknownToken() {
+        assertRefreshFails("unknown", ApplicationError.REFRESH_TOKEN_INVALID);
+    }
+
+    @Test
+    public void testBlockedUser() throws ApplicationException {
+        AuthDto login = tokenService.issue(user);
+
+        userService.update(user.getId(), new UserUpdateDto(null, null, null, null, "BLOCKED"));
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+
+        // Unblocking does not bring the revoked tokens back
+        userService.update(user.getId(), new UserUpdateDto(null, null, null, null, "ACTIVE"));
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+    }
+
+    @Test
+    public void testBlockedWithoutRevocation() throws ApplicationException {
+        AuthDto login = tokenService.issue(user);
+        userRepository.updateStatus(user.getId(), Status.BLOCKED);
+
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.USER_BLOCKED);
+        userRepository.updateStatus(user.getId(), Status.ACTIVE);
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+    }
+
+    @Test
+    public void testPasswordChangeRevokesTokens() throws ApplicationException {
+        AuthDto login = tokenService.issue(user);
+
+        userService.update(user.getId(), new UserUpdateDto(null, "newpassword", null, null, null));
+
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+    }
+
+    @Test
+    public void testExpiredTokenIsPurged() {
+        AuthDto login = tokenService.issue(user);
+        transactionTemplate.executeWithoutResult(status -> refreshTokenRepository.findAll()
+                .forEach(t -> t.setExpiresAt(Instant.now().minusSeconds(1))));
+
+        assertRefreshFails(login.getRefreshToken(), ApplicationError.REFRESH_TOKEN_INVALID);
+        assertTrue(tokenService.purgeExpired() >= 1);
+        assertEquals(0, refreshTokenRepository.count());
+    }
+
+    @Test
+    public void testConcurrentRefreshes() throws Exception {
+        AuthDto login = tokenService.issue(user);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger refreshed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        try {
+            List<Future<?>> refreshes = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                refreshes.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        tokenService.refresh(login.getRefreshToken());
+                        refreshed.incrementAndGet();
+                    } catch (ApplicationException ex) {
+                        refused.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> refresh : refreshes) {
+                refresh.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // At most one exchange wins, and any reuse revoked what it got
+        assertTrue(refreshed.get() <= 1);
+        assertEquals(threads, refreshed.get() + refused.get());
+    }
+
+    private void assertRefreshFails(String refreshToken, ApplicationError error) {
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> tokenService.refresh(refreshToken));
+        assertEquals(error, ex.getApplicationError());
+    }
+}
@@ -0,0 +1,239 @@
+package com.toptal.soccermanager.service;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationError;
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.PlayerCreateDto;
+import com.toptal.soccermanager.model.entity.*;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires hundreds of purchases at the same listings and budgets from many threads
+ * and checks that no player is sold twice and no money is created or lost.
+ * Players created and deleted meanwhile must leave the market values of the teams right.
+ */
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class TransferServiceConcurrencyTest {
+    private static final int NUMBER_OF_SELLERS = 4;
+    private static final int LISTINGS_PER_SELLER = 25;
+    private static final int NUMBER_OF_BUYERS = 8;
+    private static final int PURCHASES_PER_BUYER = 60;
+    private static final int THREADS = 16;
+    private static final long BUDGET_CENTS = 500000;
+    private static final long ASK_PRICE_CENTS = 100000;
+    private static final Money PLAYER_MARKET_VALUE = Money.of(1000000);
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TransferRepository transferRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final List<Long> sellerIds = new ArrayList<>();
+    private final List<Long> buyerIds = new ArrayList<>();
+    private final List<Long> listingIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int s = 0; s < NUMBER_OF_SELLERS; s++) {
+                Team seller = persistTeam("seller" + s + "@xyz.com");
+                sellerIds.add(seller.getId());
+                for (int p = 0; p < LISTINGS_PER_SELLER; p++) {
+                    Player player = new Player(0, "First", "Last", "Spain", 25, Position.Attacker, PLAYER_MARKET_VALUE, seller, null);
+                    entityManager.persist(player);
+                    seller.setMarketValue(seller.getMarketValue().plus(PLAYER_MARKET_VALUE));
+                    entityManager.persist(new Transfer(0, Money.ofCents(ASK_PRICE_CENTS), player));
+                    listingIds.add(player.getId());
+                }
+            }
+            for (int b = 0; b < NUMBER_OF_BUYERS; b++) {
+                buyerIds.add(persistTeam("buyer" + b + "@xyz.com").getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        transferRepository.deleteAllInBatch();
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testConcurrentPurchases() throws Exception {
+        Map<Long, Long> buyerOfListing = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> purchases = new ArrayList<>();
+        Random random = new Random(42);
+        for (long buyerId : buyerIds) {
+            for (int i = 0; i < PURCHASES_PER_BUYER; i++) {
+                long listingId = listingIds.get(random.nextInt(listingIds.size()));
+                purchases.add(() -> {
+                    try {
+                        transferService.delete(listingId, buyerId);
+                        assertNull(buyerOfListing.putIfAbsent(listingId, buyerId), "listing sold twice");
+                    } catch (ApplicationException ex) {
+                        ApplicationError error = ex.getApplicationError();
+                        assertTrue(error == ApplicationError.TRANSFER_NOT_FOUND || error == ApplicationError.TEAM_INSUFFICIENT_BUDGET,
+                                "unexpected error " + error);
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+        }
+        Collections.shuffle(purchases, random);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(purchases)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        int sold = buyerOfListing.size();
+        assertEquals(purchases.size(), sold + rejected.get());
+        assertTrue(sold > 0);
+        assertEquals(listingIds.size() - sold, transferRepository.count());
+
+        // every sold player moved to the buyer that paid for him, each buyer paid for what he got
+        Map<Long, Integer> boughtBy = new HashMap<>();
+        buyerOfListing.forEach((listingId, buyerId) -> {
+            assertEquals(buyerId, playerRepository.findById(listingId).orElseThrow().getTeam().getId());
+            boughtBy.merge(buyerId, 1, Integer::sum);
+        });
+        for (long buyerId : buyerIds) {
+            Team buyer = teamRepository.findById(buyerId).orElseThrow();
+            int bought = boughtBy.getOrDefault(buyerId, 0);
+            assertTrue(buyer.getBudget().getCents() >= 0);
+            assertEquals(Money.ofCents(BUDGET_CENTS - bought * ASK_PRICE_CENTS), buyer.getBudget());
+        }
+
+        // money only moves between teams
+        long totalBudget = teamRepository.findAll().stream().mapToLong(t -> t.getBudget().getCents()).sum();
+        assertEquals((NUMBER_OF_SELLERS + NUMBER_OF_BUYERS) * BUDGET_CENTS, totalBudget);
+        int soldBySellers = sellerIds.stream()
+                .mapToInt(id -> (int) ((teamRepository.findById(id).orElseThrow().getBudget().getCents() - BUDGET_CENTS) / ASK_PRICE_CENTS))
+                .sum();
+        assertEquals(sold, soldBySellers);
+
+        assertEquals(0, teamService.reconcileMarketValues());
+    }
+
+    @Test
+    public void testConcurrentSquadChanges() throws Exception {
+        List<Long> unlistedIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (long sellerId : sellerIds) {
+                Team seller = entityManager.find(Team.class, sellerId);
+                for (int p = 0; p < LISTINGS_PER_SELLER; p++) {
+                    Player player = new Player(0, "First", "Last", "Spain", 25, Position.Defender, PLAYER_MARKET_VALUE, seller, null);
+                    entityManager.persist(player);
+                    seller.setMarketValue(seller.getMarketValue().plus(PLAYER_MARKET_VALUE));
+                    ids.add(player.getId());
+                }
+            }
+            return ids;
+        });
+
+        List<Callable<Void>> changes = new ArrayList<>();
+        Random random = new Random(42);
+        for (long buyerId : buyerIds) {
+            for (int i = 0; i < PURCHASES_PER_BUYER / 4; i++) {
+                long listingId = listingIds.get(random.nextInt(listingIds.size()));
+                changes.add(() -> {
+                    try {
+                        transferService.delete(listingId, buyerId);
+                    } catch (ApplicationException ex) {
+                        // Sold already or out of budget
+                    }
+                    return null;
+                });
+                changes.add(() -> {
+                    playerService.create(new PlayerCreateDto("First", "Last", "Spain", 25, "Goalkeeper", 5000.5), buyerId);
+                    return null;
+                });
+            }
+        }
+        for (long sellerId : sellerIds) {
+            for (int i = 0; i < LISTINGS_PER_SELLER; i++) {
+                changes.add(() -> {
+                    playerService.create(new PlayerCreateDto("First", "Last", "Spain", 25, "Goalkeeper", 7000.25), sellerId);
+                    return null;
+                });
+            }
+        }
+        for (long unlistedId : unlistedIds) {
+            changes.add(() -> {
+                assertTrue(playerService.delete(unlistedId, null));
+                return null;
+            });
+        }
+        Collections.shuffle(changes, random);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(changes)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // No increment of a market value got lost between the concurrent changes
+        assertEquals(0, teamService.reconcileMarketValues());
+    }
+
+    private Team persistTeam(String email) {
+        User user = new User(0, email, "pwd", "User", Role.ROLE_USER, Status.ACTIVE, 0, null);
+        Team team = new Team(0, "Team", "Spain", Money.ofCents(BUDGET_CENTS), Money.ZERO, 0, user, new HashSet<>());
+        user.setTeam(team);
+        entityManager.persist(user);
+        entityManager.persist(team);
+        return team;
+    }
+}
@@ -3,6 +3,7 @@ package com.toptal.soccermanager.service;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Player;
 import com.toptal.soccermanager.model.entity.Position;
 import com.toptal.soccermanager.model.entity.Team;
@@ -21,9 +22,13 @@ import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,6 +52,9 @@ public class TransferServiceImplTest {
     @Mock
     private Mapper mapper;
 
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private TransferServiceImpl transferService;
 
@@ -63,10 +71,10 @@ public class TransferServiceImplTest {
     private final String TEAM_COUNTRY = "Spain";
     private final double TEAM_BUDGET = 100000.0;
 
-    private final Team team = new Team(TEAM_ID, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, null, new HashSet<>());
-    private final Team anotherTeam = new Team(3L, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, null, new HashSet<>());
-    private final Player player = new Player(ID, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), PLAYER_MARKET_VALUE, team, null);
-    private final Transfer transfer = new Transfer(ID, ASK_PRICE, player);
+    private final Team team = new Team(TEAM_ID, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.of(PLAYER_MARKET_VALUE), 0, null, new HashSet<>());
+    private final Team anotherTeam = new Team(3L, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.ZERO, 0, null, new HashSet<>());
+    private final Player player = new Player(ID, FIRST_NAME, LAST_NAME, PLAYER_COUNTRY, AGE, Position.valueOf(POSITION), Money.of(PLAYER_MARKET_VALUE), team, null);
+    private final Transfer transfer = new Transfer(ID, Money.of(ASK_PRICE), player);
     private final TransferCreateDto createdTransfer = new TransferCreateDto(ID, ASK_PRICE);
     private final TransferUpdateDto updatedTransfer = new TransferUpdateDto(ASK_PRICE);
     private final TransferDto returnedTransfer = new TransferDto(ID, String.valueOf(ASK_PRICE), null);
@@ -133,7 +141,7 @@ public class TransferServiceImplTest {
 
     @Test
     public void testGetAllWithPagination() throws ApplicationException {
-        Transfer dummyTransfer = new Transfer(2L, ASK_PRICE, player);
+        Transfer dummyTransfer = new Transfer(2L, Money.of(ASK_PRICE), player);
         TransferDto dummyTransferDto = new TransferDto(2L, String.valueOf(ASK_PRICE), null);
         when(transferRepository.findAllWithPlayers(any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(transfer, dummyTransfer)));
         when(mapper.getTransferDtoFromEntity(transfer, true)).thenReturn(returnedTransfer);
@@ -153,15 +161,40 @@ public class TransferServiceImplTest {
         assertEquals(50, capturedRequest.getPageSize());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSearch() throws ApplicationException {
+        when(transferRepository.findAll(any(Specification.class), any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(transfer)));
+        when(mapper.getTransferDtoFromEntity(transfer, true)).thenReturn(returnedTransfer);
+
+        TransferFilterDto filter = new TransferFilterDto(PLAYER_COUNTRY, " ", null, "attacker", ASK_PRICE, ASK_PRICE, null, null);
+        PagingDataRespDto<TransferDto> pageResult = transferService.search(filter, pageRequest);
+        assertEquals(1, pageResult.getTotalElements());
+        verifyTransferDto(returnedTransfer, pageResult.getData().get(0));
+
+        ArgumentCaptor<PageRequest> argumentCaptor = ArgumentCaptor.forClass(PageRequest.class);
+        verify(transferRepository).findAll(any(Specification.class), argumentCaptor.capture());
+        assertEquals(Sort.by(Sort.Direction.ASC, "askPrice", "id"), argumentCaptor.getValue().getSort());
+    }
+
+    @Test
+    public void testSearch_minGreaterThanMax() {
+        TransferFilterDto filter = new TransferFilterDto(null, null, null, null, null, null, PLAYER_MARKET_VALUE, PLAYER_MARKET_VALUE - 0.01);
+
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> transferService.search(filter, pageRequest));
+        assertEquals(ApplicationError.FILTER_CRITERIA_ERROR, ex.getApplicationError());
+    }
+
     @Test
     public void testGetAllWithoutPagination() {
-        Transfer dummyTransfer = new Transfer(2L, ASK_PRICE, player);
+        Transfer dummyTransfer = new Transfer(2L, Money.of(ASK_PRICE), player);
         TransferDto dummyTransferDto = new TransferDto(2L, String.valueOf(ASK_PRICE), null);
-        when(transferRepository.findAllWithPlayers()).thenReturn(new ArrayList<>(Arrays.asList(transfer, dummyTransfer)));
+        when(transferRepository.streamAllWithPlayers()).thenReturn(Stream.of(transfer, dummyTransfer));
         when(mapper.getTransferDtoFromEntity(transfer, true)).thenReturn(returnedTransfer);
         when(mapper.getTransferDtoFromEntity(dummyTransfer, true)).thenReturn(dummyTransferDto);
 
-        List<TransferDto> actualTransfers = transferService.getAll();
+        List<TransferDto> actualTransfers = new ArrayList<>();
+        transferService.streamAll(actualTransfers::add);
         assertEquals(2, actualTransfers.size());
         verifyTransferDto(returnedTransfer, actualTransfers.get(0));
         verifyTransferDto(dummyTransferDto, actualTransfers.get(1));
@@ -169,8 +202,8 @@ public class TransferServiceImplTest {
 
     @Test
     public void testUpdate() throws ApplicationException {
-        Transfer dummyTransfer = new Transfer(ID, 1213213.0, player);
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(dummyTransfer));
+        Transfer dummyTransfer = new Transfer(ID, Money.of(1213213.0), player);
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(dummyTransfer));
         when(transferRepository.save(any(Transfer.class))).thenReturn(transfer);
         when(mapper.getTransferDtoFromEntity(transfer, true)).thenReturn(returnedTransfer);
 
@@ -185,78 +218,84 @@ public class TransferServiceImplTest {
     @Test
     public void testDelete_withdrawTransfer() throws ApplicationException {
         player.setTransfer(transfer);
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(transfer));
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(transfer));
         doNothing().when(transferRepository).delete(transfer);
 
         boolean success = transferService.delete(ID, TEAM_ID);
         assertTrue(success);
         assertNull(player.getTransfer());
-        assertEquals(TEAM_BUDGET, team.getBudget());
-        assertEquals(PLAYER_MARKET_VALUE, player.getMarketValue());
+        assertEquals(Money.of(TEAM_BUDGET), team.getBudget());
+        assertEquals(Money.of(PLAYER_MARKET_VALUE), player.getMarketValue());
     }
 
     @Test
     public void testDelete_withdrawTransfer_nullTeamId() throws ApplicationException {
         player.setTransfer(transfer);
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(transfer));
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(transfer));
         doNothing().when(transferRepository).delete(transfer);
 
         boolean success = transferService.delete(ID, null);
         assertTrue(success);
         assertNull(player.getTransfer());
-        assertEquals(TEAM_BUDGET, team.getBudget());
-        assertEquals(PLAYER_MARKET_VALUE, player.getMarketValue());
+        assertEquals(Money.of(TEAM_BUDGET), team.getBudget());
+        assertEquals(Money.of(PLAYER_MARKET_VALUE), player.getMarketValue());
     }
 
     @Test
     public void testDelete_buyPlayer() throws ApplicationException {
         player.setTransfer(transfer);
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(transfer));
-        when(teamRepository.findById(anotherTeam.getId())).thenReturn(Optional.of(anotherTeam));
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(transfer));
+        when(teamRepository.findByIdForUpdate(TEAM_ID)).thenReturn(Optional.of(team));
+        when(teamRepository.findByIdForUpdate(anotherTeam.getId())).thenReturn(Optional.of(anotherTeam));
         when(teamRepository.save(any(Team.class))).thenReturn(new Team());
         when(playerRepository.save(any(Player.class))).thenReturn(player);
+        when(creator.createMarketValue(Money.of(PLAYER_MARKET_VALUE))).thenReturn(Money.of(2 * PLAYER_MARKET_VALUE));
         doNothing().when(transferRepository).delete(transfer);
 
         boolean success = transferService.delete(ID, anotherTeam.getId());
         assertTrue(success);
         assertNull(player.getTransfer());
-        assertEquals(TEAM_BUDGET + ASK_PRICE, team.getBudget());
-        assertEquals(TEAM_BUDGET - ASK_PRICE, anotherTeam.getBudget());
+        assertEquals(Money.of(TEAM_BUDGET + ASK_PRICE), team.getBudget());
+        assertEquals(Money.of(TEAM_BUDGET - ASK_PRICE), anotherTeam.getBudget());
         assertEquals(anotherTeam, player.getTeam());
+        assertEquals(Money.ZERO, team.getMarketValue());
+        assertEquals(Money.of(2 * PLAYER_MARKET_VALUE), anotherTeam.getMarketValue());
     }
 
     @Test
     public void testDelete_teamNotFound() {
         player.setTransfer(transfer);
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(transfer));
-        when(teamRepository.findById(anotherTeam.getId())).thenReturn(Optional.empty());
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(transfer));
+        when(teamRepository.findByIdForUpdate(TEAM_ID)).thenReturn(Optional.of(team));
+        when(teamRepository.findByIdForUpdate(anotherTeam.getId())).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> transferService.delete(ID, anotherTeam.getId()));
         assertEquals(ApplicationError.TEAM_NOT_FOUND, ex.getApplicationError());
-        assertEquals(TEAM_BUDGET, team.getBudget());
-        assertEquals(TEAM_BUDGET, anotherTeam.getBudget());
-        assertEquals(PLAYER_MARKET_VALUE, player.getMarketValue());
+        assertEquals(Money.of(TEAM_BUDGET), team.getBudget());
+        assertEquals(Money.of(TEAM_BUDGET), anotherTeam.getBudget());
+        assertEquals(Money.of(PLAYER_MARKET_VALUE), player.getMarketValue());
         assertEquals(transfer, player.getTransfer());
     }
 
     @Test
     public void testDelete_inSufficientBudget() {
-        transfer.setAskPrice(TEAM_BUDGET + 1);
+        transfer.setAskPrice(Money.of(TEAM_BUDGET + 1));
         player.setTransfer(transfer);
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(transfer));
-        when(teamRepository.findById(anotherTeam.getId())).thenReturn(Optional.of(anotherTeam));
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(transfer));
+        when(teamRepository.findByIdForUpdate(TEAM_ID)).thenReturn(Optional.of(team));
+        when(teamRepository.findByIdForUpdate(anotherTeam.getId())).thenReturn(Optional.of(anotherTeam));
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> transferService.delete(ID, anotherTeam.getId()));
         assertEquals(ApplicationError.TEAM_INSUFFICIENT_BUDGET, ex.getApplicationError());
-        assertEquals(TEAM_BUDGET, team.getBudget());
-        assertEquals(TEAM_BUDGET, anotherTeam.getBudget());
-        assertEquals(PLAYER_MARKET_VALUE, player.getMarketValue());
+        assertEquals(Money.of(TEAM_BUDGET), team.getBudget());
+        assertEquals(Money.of(TEAM_BUDGET), anotherTeam.getBudget());
+        assertEquals(Money.of(PLAYER_MARKET_VALUE), player.getMarketValue());
         assertEquals(transfer, player.getTransfer());
     }
 
     @Test
     public void testUpdate_unAuthorized() {
-        when(transferRepository.findByIdWithPlayers(ID)).thenReturn(Optional.of(transfer));
+        when(transferRepository.findByIdForUpdate(ID)).thenReturn(Optional.of(transfer));
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> transferService.update(ID, updatedTransfer, 3L));
         assertEquals(ApplicationError.UNAUTHORIZED_USER_ERROR, ex.getApplicationError());
@@ -0,0 +1,87 @@
+package com.toptal.soccermanager.service;
+
+import com.toptal.soccermanager.configuration.exception.ApplicationException;
+import com.toptal.soccermanager.model.dto.UserCreateDto;
+import com.toptal.soccermanager.model.dto.UserDto;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TeamRepository;
+import com.toptal.soccermanager.repository.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+public class UserServiceBatchInsertTest {
+    private static final int PLAYERS_PER_TEAM = 20;
+    private static final int NUMBER_OF_USERS = 30;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        playerRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testCreate_insertsInBatches() throws ApplicationException {
+        UserDto user = userService.create(new UserCreateDto("batch@xyz.com", "test", "Test Name", "ROLE_USER"));
+
+        assertEquals(2 + PLAYERS_PER_TEAM, statistics.getEntityInsertCount());
+        // email lookup, the two id sequences and one batch each for user, team and players instead of 23 round trips
+        assertTrue(statistics.getPrepareStatementCount() <= 6, "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(PLAYERS_PER_TEAM, playerRepository.findAllPlayersByTeamId(user.getId(), Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    public void testCreateAll_insertsInBatches() throws ApplicationException {
+        List<UserCreateDto> users = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_USERS; i++) {
+            users.add(new UserCreateDto("bulk" + i + "@xyz.com", "test", "Test Name", "ROLE_USER"));
+        }
+
+        List<UserDto> createdUsers = userService.createAll(users);
+
+        assertEquals(NUMBER_OF_USERS, createdUsers.size());
+        assertEquals(NUMBER_OF_USERS * (2 + PLAYERS_PER_TEAM), statistics.getEntityInsertCount());
+        // instead of one round trip per row, 660 inserts
+        assertTrue(statistics.getPrepareStatementCount() <= 30, "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(NUMBER_OF_USERS, userRepository.count());
+        assertEquals(NUMBER_OF_USERS * PLAYERS_PER_TEAM, playerRepository.count());
+    }
+}
@@ -1,19 +1,29 @@
 package com.toptal.soccermanager.service;
 
+import com.toptal.soccermanager.configuration.authentication.LoginThrottle;
+import com.toptal.soccermanager.configuration.authentication.PasswordChecker;
+import com.toptal.soccermanager.configuration.authentication.PasswordChecker.PasswordCheck;
+import com.toptal.soccermanager.configuration.authentication.PrincipalCache;
+import com.toptal.soccermanager.configuration.cache.SquadCache;
 import com.toptal.soccermanager.configuration.exception.ApplicationError;
 import com.toptal.soccermanager.configuration.exception.ApplicationException;
 import com.toptal.soccermanager.model.dto.*;
+import com.toptal.soccermanager.model.entity.Money;
 import com.toptal.soccermanager.model.entity.Role;
 import com.toptal.soccermanager.model.entity.Status;
 import com.toptal.soccermanager.model.entity.Team;
 import com.toptal.soccermanager.model.entity.User;
+import com.toptal.soccermanager.repository.PlayerRepository;
+import com.toptal.soccermanager.repository.TransferRepository;
 import com.toptal.soccermanager.repository.UserRepository;
 import com.toptal.soccermanager.service.impl.UserServiceImpl;
 import com.toptal.soccermanager.utils.Creator;
 import com.toptal.soccermanager.utils.Mapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -21,11 +31,17 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +53,12 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PlayerRepository playerRepository;
+
+    @Mock
+    private TransferRepository transferRepository;
+
     @Mock
     private PasswordEncoder passwordEncoder;
 
@@ -46,6 +68,30 @@ public class UserServiceImplTest {
     @Mock
     private Mapper mapper;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SquadCache squadCache;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private PasswordChecker passwordChecker;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    @Mock
+    private LoginThrottle.Attempt attempt;
+
+    @Mock
+    private TokenService tokenService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -54,6 +100,7 @@ public class UserServiceImplTest {
     private final String FULL_NAME = "Test Name";
     private final String PASSWORD = "test";
     private final String ENCODED_PASSWORD = "encodedtest";
+    private final String ADDRESS = "10.0.0.1";
     private final String ROLE = "ROLE_USER";
     private final String STATUS = "ACTIVE";
     private final String TEAM_NAME = "Test Name";
@@ -63,11 +110,17 @@ public class UserServiceImplTest {
     private final CredentialDto credential = new CredentialDto(EMAIL, PASSWORD);
     private final UserCreateDto createdUser = new UserCreateDto(EMAIL, PASSWORD, FULL_NAME, ROLE);
     private final UserUpdateDto updatedUser = new UserUpdateDto(EMAIL, PASSWORD, FULL_NAME, ROLE, STATUS);
-    private final Team team = new Team(ID, TEAM_NAME, TEAM_COUNTRY, TEAM_BUDGET, null, null);
+    private final Team team = new Team(ID, TEAM_NAME, TEAM_COUNTRY, Money.of(TEAM_BUDGET), Money.ZERO, 0, null, null);
     private final User user = new User(ID, EMAIL, ENCODED_PASSWORD, FULL_NAME, Role.valueOf(ROLE), Status.valueOf(STATUS), 0, team);
     private final UserDto returnedUser = new UserDto(ID, EMAIL, FULL_NAME, STATUS, ROLE);
     private final PagingDataReqDto pageRequest = new PagingDataReqDto(0, 50);
 
+    @BeforeEach
+    public void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
     @Test
     public void testCreate() throws ApplicationException {
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.empty());
@@ -95,9 +148,50 @@ public class UserServiceImplTest {
         assertEquals(ApplicationError.USER_DUPLICATED, ex.getApplicationError());
     }
 
+    @Test
+    public void testCreateAll() throws ApplicationException {
+        UserCreateDto anotherUser = new UserCreateDto("def@xyz.c", PASSWORD, FULL_NAME, ROLE);
+        when(userRepository.findAllByEmailIn(any())).thenReturn(new ArrayList<>());
+        when(passwordChecker.encodeAll(Arrays.asList(PASSWORD, PASSWORD))).thenReturn(Arrays.asList(ENCODED_PASSWORD, ENCODED_PASSWORD));
+        when(creator.createTeam()).thenReturn(new Team(), new Team());
+        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(mapper.getUserDtoFromEntity(user)).thenReturn(returnedUser);
+
+        List<UserDto> actualUsers = userService.createAll(Arrays.asList(createdUser, anotherUser));
+        assertEquals(2, actualUsers.size());
+
+        ArgumentCaptor<User> argumentCaptor = ArgumentCaptor.forClass(User.class);
+        verify(userRepository, times(2)).save(argumentCaptor.capture());
+        assertEquals(EMAIL, argumentCaptor.getAllValues().get(0).getEmail());
+        assertEquals("def@xyz.c", argumentCaptor.getAllValues().get(1).getEmail());
+        argumentCaptor.getAllValues().forEach(u -> assertEquals(u, u.getTeam().getUser()));
+
+        // No transaction is open while the passwords are hashed, on the pool of the password checks
+        InOrder inOrder = inOrder(passwordChecker, transactionTemplate, userRepository);
+        inOrder.verify(passwordChecker).encodeAll(Arrays.asList(PASSWORD, PASSWORD));
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(userRepository, times(2)).save(any(User.class));
+    }
+
+    @Test
+    public void testCreateAll_duplicatedInRequest() {
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.createAll(Arrays.asList(createdUser, createdUser)));
+        assertEquals(ApplicationError.USER_DUPLICATED, ex.getApplicationError());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    public void testCreateAll_emailExists() {
+        when(userRepository.findAllByEmailIn(any())).thenReturn(new ArrayList<>(Arrays.asList(user)));
+
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.createAll(Arrays.asList(createdUser)));
+        assertEquals(ApplicationError.USER_DUPLICATED, ex.getApplicationError());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     public void testGetById() throws ApplicationException {
-        when(userRepository.findById(ID)).thenReturn(Optional.of(user));
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(user));
         when(mapper.getUserDtoFromEntity(user)).thenReturn(returnedUser);
 
         UserDto actualUser = userService.getById(ID);
@@ -106,7 +200,7 @@ public class UserServiceImplTest {
 
     @Test
     public void testGetById_userNotFound() {
-        when(userRepository.findById(ID)).thenReturn(Optional.empty());
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.getById(ID));
         assertEquals(ApplicationError.USER_NOT_FOUND, ex.getApplicationError());
@@ -116,7 +210,7 @@ public class UserServiceImplTest {
     public void testGetAllWithPagination() throws ApplicationException {
         User dummyUser = new User(2L, "abc@d.e", "pass", "Another User", Role.ROLE_USER, Status.ACTIVE, 0, null);
         UserDto dummyUserDto = new UserDto(2L, "abc@d.e", "Another User",  "ROLE_USER", "ACTIVE");
-        when(userRepository.findAll(any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(user, dummyUser)));
+        when(userRepository.findAllWithTeam(any(PageRequest.class))).thenReturn(new PageImpl<>(Arrays.asList(user, dummyUser)));
         when(mapper.getUserDtoFromEntity(user)).thenReturn(returnedUser);
         when(mapper.getUserDtoFromEntity(dummyUser)).thenReturn(dummyUserDto);
 
@@ -128,7 +222,7 @@ public class UserServiceImplTest {
         verifyUserDto(dummyUserDto, pageResult.getData().get(1));
 
         ArgumentCaptor<PageRequest> argumentCaptor = ArgumentCaptor.forClass(PageRequest.class);
-        verify(userRepository).findAll(argumentCaptor.capture());
+        verify(userRepository).findAllWithTeam(argumentCaptor.capture());
         PageRequest capturedRequest = argumentCaptor.getValue();
         assertEquals(0, capturedRequest.getPageNumber());
         assertEquals(50, capturedRequest.getPageSize());
@@ -136,7 +230,7 @@ public class UserServiceImplTest {
 
     @Test
     public void testGetAllWithPagination_Empty() throws ApplicationException {
-        when(userRepository.findAll(any(PageRequest.class))).thenReturn(new PageImpl<>(new ArrayList<>()));
+        when(userRepository.findAllWithTeam(any(PageRequest.class))).thenReturn(new PageImpl<>(new ArrayList<>()));
         PagingDataRespDto<UserDto> pageResult = userService.getAll(pageRequest);
         assertEquals(0, pageResult.getTotalElements());
         assertEquals(1, pageResult.getTotalPage());
@@ -147,11 +241,12 @@ public class UserServiceImplTest {
     public void testGetAllWithoutPagination() {
         User dummyUser = new User(2L, "abc@d.e", "pass", "Another User", Role.ROLE_USER, Status.ACTIVE, 0, null);
         UserDto dummyUserDto = new UserDto(2L, "abc@d.e", "Another User", "ROLE_USER", "ACTIVE");
-        when(userRepository.findAll()).thenReturn(new ArrayList<>(Arrays.asList(user, dummyUser)));
+        when(userRepository.streamAll()).thenReturn(Stream.of(user, dummyUser));
         when(mapper.getUserDtoFromEntity(user)).thenReturn(returnedUser);
         when(mapper.getUserDtoFromEntity(dummyUser)).thenReturn(dummyUserDto);
 
-        List<UserDto> actualUsers = userService.getAll();
+        List<UserDto> actualUsers = new ArrayList<>();
+        userService.streamAll(actualUsers::add);
         assertEquals(2, actualUsers.size());
         verifyUserDto(returnedUser, actualUsers.get(0));
         verifyUserDto(dummyUserDto, actualUsers.get(1));
@@ -159,22 +254,27 @@ public class UserServiceImplTest {
 
     @Test
     public void testGetAllWithoutPagination_Empty() {
-        when(userRepository.findAll()).thenReturn(new ArrayList<>());
+        when(userRepository.streamAll()).thenReturn(Stream.empty());
 
-        List<UserDto> actualUsers = userService.getAll();
+        List<UserDto> actualUsers = new ArrayList<>();
+        userService.streamAll(actualUsers::add);
         assertEquals(0, actualUsers.size());
     }
 
     @Test
     public void testUpdate() throws ApplicationException {
         User dummyUser = new User(ID, "abc@d.e", "pass", "Another User", Role.ROLE_USER, Status.BLOCKED, 2, null);
-        when(userRepository.findById(ID)).thenReturn(Optional.of(dummyUser));
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(dummyUser));
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.empty());
         when(passwordEncoder.encode(PASSWORD)).thenReturn(ENCODED_PASSWORD);
         when(userRepository.save(any(User.class))).thenReturn(user);
         when(mapper.getUserDtoFromEntity(user)).thenReturn(returnedUser);
 
         userService.update(ID, updatedUser);
+        verify(principalCache).invalidate(ID);
+        verify(loginThrottle).reset(EMAIL);
+        // The password changed
+        verify(tokenService).revokeAll(ID);
 
         ArgumentCaptor<User> argumentCaptor = ArgumentCaptor.forClass(User.class);
         verify(userRepository).save(argumentCaptor.capture());
@@ -184,7 +284,7 @@ public class UserServiceImplTest {
 
     @Test
     public void testUpdate_userNotFound() {
-        when(userRepository.findById(ID)).thenReturn(Optional.empty());
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.update(ID, updatedUser));
         assertEquals(ApplicationError.USER_NOT_FOUND, ex.getApplicationError());
@@ -193,25 +293,52 @@ public class UserServiceImplTest {
     @Test
     public void testUpdate_emailExists() {
         User dummyUser = new User(ID, "abc@d.e", "pass", "Another User", Role.ROLE_USER, Status.BLOCKED, 2, null);
-        when(userRepository.findById(ID)).thenReturn(Optional.of(dummyUser));
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(dummyUser));
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.update(ID, updatedUser));
         assertEquals(ApplicationError.USER_DUPLICATED, ex.getApplicationError());
     }
 
+    @Test
+    public void testUpdate_principalUnchanged() throws ApplicationException {
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(mapper.getUserDtoFromEntity(user)).thenReturn(returnedUser);
+
+        userService.update(ID, new UserUpdateDto(null, null, "New Name", ROLE, STATUS));
+        verify(principalCache, never()).invalidate(anyLong());
+        verify(tokenService, never()).revokeAll(anyLong());
+    }
+
+    @Test
+    public void testUpdate_blockedRevokesTokens() throws ApplicationException {
+        User activeUser = new User(ID, EMAIL, ENCODED_PASSWORD, FULL_NAME, Role.ROLE_USER, Status.ACTIVE, 0, null);
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(activeUser));
+        when(userRepository.save(any(User.class))).thenReturn(activeUser);
+        when(mapper.getUserDtoFromEntity(activeUser)).thenReturn(returnedUser);
+
+        userService.update(ID, new UserUpdateDto(null, null, null, null, "BLOCKED"));
+        verify(principalCache).invalidate(ID);
+        verify(tokenService).revokeAll(ID);
+    }
+
     @Test
     public void testDelete() throws ApplicationException {
-        when(userRepository.findById(ID)).thenReturn(Optional.of(user));
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.of(user));
         doNothing().when(userRepository).delete(user);
 
         boolean success = userService.delete(ID);
         assertTrue(success);
+        verify(transferRepository).deleteAllByTeamId(ID);
+        verify(playerRepository).deleteAllByTeamId(ID);
+        verify(squadCache).evict(ID);
+        verify(principalCache).invalidate(ID);
     }
 
     @Test
     public void testDelete_userNotFound() {
-        when(userRepository.findById(ID)).thenReturn(Optional.empty());
+        when(userRepository.findByIdWithTeam(ID)).thenReturn(Optional.empty());
 
         ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.delete(ID));
         assertEquals(ApplicationError.USER_NOT_FOUND, ex.getApplicationError());
@@ -220,13 +347,16 @@ public class UserServiceImplTest {
     @Test
     public void testLogin() throws ApplicationException {
         user.setLoginAttempts(3);
+        acquireAttempt(1);
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(PASSWORD, user.getPassword())).thenReturn(true);
+        when(passwordChecker.check(PASSWORD, user.getPassword())).thenReturn(CompletableFuture.completedFuture(new PasswordCheck(true, null)));
         when(mapper.getUserDtoFromEntity(any(User.class))).thenReturn(returnedUser);
 
-        UserDto actualUser = userService.login(credential);
+        UserDto actualUser = userService.login(credential, ADDRESS).join();
         verifyUserDto(returnedUser, actualUser);
 
+        verify(attempt).succeeded();
+        verify(userRepository).resetLoginAttempts(ID);
         ArgumentCaptor<User> argumentCaptor = ArgumentCaptor.forClass(User.class);
         verify(mapper).getUserDtoFromEntity(argumentCaptor.capture());
         User capturedUser = argumentCaptor.getValue();
@@ -234,46 +364,111 @@ public class UserServiceImplTest {
     }
 
     @Test
-    public void testLogin_credentialInvalid() {
+    public void testLogin_noFailedAttempts() throws ApplicationException {
+        acquireAttempt(1);
+        when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(passwordChecker.check(PASSWORD, user.getPassword())).thenReturn(CompletableFuture.completedFuture(new PasswordCheck(true, null)));
+        when(mapper.getUserDtoFromEntity(any(User.class))).thenReturn(returnedUser);
+
+        userService.login(credential, ADDRESS).join();
+
+        verify(userRepository, never()).resetLoginAttempts(anyLong());
+        verify(userRepository, never()).upgradePassword(anyLong(), any(), any());
+    }
+
+    @Test
+    public void testLogin_upgradesPassword() throws ApplicationException {
+        acquireAttempt(1);
+        when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(passwordChecker.check(PASSWORD, ENCODED_PASSWORD))
+                .thenReturn(CompletableFuture.completedFuture(new PasswordCheck(true, "{bcrypt}" + ENCODED_PASSWORD)));
+        when(mapper.getUserDtoFromEntity(any(User.class))).thenReturn(returnedUser);
+
+        userService.login(credential, ADDRESS).join();
+
+        verify(userRepository).upgradePassword(ID, ENCODED_PASSWORD, "{bcrypt}" + ENCODED_PASSWORD);
+    }
+
+    @Test
+    public void testLogin_throttled() throws ApplicationException {
+        when(loginThrottle.acquire(EMAIL, ADDRESS, 3)).thenThrow(new ApplicationException(ApplicationError.LOGIN_THROTTLED));
+
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential, ADDRESS));
+        assertEquals(ApplicationError.LOGIN_THROTTLED, ex.getApplicationError());
+        verifyNoInteractions(userRepository, passwordChecker);
+    }
+
+    @Test
+    public void testLogin_credentialInvalid() throws ApplicationException {
+        acquireAttempt(1);
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.empty());
 
-        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential));
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential, ADDRESS));
         assertEquals(ApplicationError.USER_CREDENTIALS_INVALID, ex.getApplicationError());
+        verify(attempt, never()).cancelled();
     }
 
     @Test
-    public void testLogin_userBlocked() {
+    public void testLogin_userBlocked() throws ApplicationException {
         user.setStatus(Status.BLOCKED);
+        acquireAttempt(1);
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
 
-        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential));
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential, ADDRESS));
         assertEquals(ApplicationError.USER_BLOCKED, ex.getApplicationError());
     }
 
     @Test
-    public void testLogin_invalidPassword_lessThanMaxLoginAttempts() {
+    public void testLogin_checkerBusy() throws ApplicationException {
+        acquireAttempt(1);
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(PASSWORD, user.getPassword())).thenReturn(false);
+        when(passwordChecker.check(PASSWORD, user.getPassword()))
+                .thenThrow(new ApplicationException(ApplicationError.LOGIN_UNAVAILABLE));
 
-        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential));
+        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential, ADDRESS));
+        assertEquals(ApplicationError.LOGIN_UNAVAILABLE, ex.getApplicationError());
+        verify(attempt).cancelled();
+    }
+
+    @Test
+    public void testLogin_invalidPassword_lessThanMaxLoginAttempts() throws ApplicationException {
+        acquireAttempt(1);
+        when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(passwordChecker.check(PASSWORD, user.getPassword())).thenReturn(CompletableFuture.completedFuture(new PasswordCheck(false, null)));
+
+        ApplicationException ex = loginFailure();
         assertEquals(ApplicationError.USER_CREDENTIALS_INVALID, ex.getApplicationError());
         assertEquals("Remaining login attempts: 2", ex.getAdditionalMessage());
 
-        assertEquals(1, user.getLoginAttempts());
+        verify(userRepository, never()).updateStatus(anyLong(), any());
+        verify(principalCache, never()).invalidate(anyLong());
+        verify(attempt, never()).succeeded();
     }
 
     @Test
-    public void testLogin_invalidPassword_exceedMaxLoginAttempts() {
-        user.setLoginAttempts(2);
+    public void testLogin_invalidPassword_exceedMaxLoginAttempts() throws ApplicationException {
+        acquireAttempt(3);
         when(userRepository.findOneByEmail(EMAIL)).thenReturn(Optional.of(user));
-        when(passwordEncoder.matches(PASSWORD, user.getPassword())).thenReturn(false);
+        when(passwordChecker.check(PASSWORD, user.getPassword())).thenReturn(CompletableFuture.completedFuture(new PasswordCheck(false, null)));
 
-        ApplicationException ex = assertThrows(ApplicationException.class, () -> userService.login(credential));
+        ApplicationException ex = loginFailure();
         assertEquals(ApplicationError.USER_CREDENTIALS_INVALID, ex.getApplicationError());
         assertEquals("Remaining login attempts: 0", ex.getAdditionalMessage());
 
-        assertEquals(Status.BLOCKED, user.getStatus());
-        assertEquals(0, user.getLoginAttempts());
+        verify(userRepository).updateStatus(ID, Status.BLOCKED);
+        verify(principalCache).invalidate(ID);
+        verify(tokenService).revokeAll(ID);
+    }
+
+    private void acquireAttempt(int emailAttempts) throws ApplicationException {
+        when(attempt.getEmailAttempts()).thenReturn(emailAttempts);
+        when(loginThrottle.acquire(EMAIL, ADDRESS, 3)).thenReturn(attempt);
+    }
+
+    private ApplicationException loginFailure() throws ApplicationException {
+        CompletableFuture<UserDto> login = userService.login(credential, ADDRESS);
+        CompletionException ex = assertThrows(CompletionException.class, login::join);
+        return assertInstanceOf(ApplicationException.class, ex.getCause());
     }
 
     private void verifyUserDto(UserDto expected, UserDto actual) {
@@ -0,0 +1,110 @@
+package com.toptal.soccermanager.utils;
+
+import com.toptal.soccermanager.model.entity.Money;
+import com.toptal.soccermanager.model.entity.Player;
+import com.toptal.soccermanager.model.entity.Position;
+import com.toptal.soccermanager.model.entity.Team;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CreatorTest {
+    private static final int POOL_SIZE = 5;
+
+    private final Creator creator = new Creator();
+
+    @AfterEach
+    public void tearDown() {
+        creator.stopPool();
+    }
+
+    @Test
+    public void testCreateTeam_fromPool() throws InterruptedException {
+        ReflectionTestUtils.setField(creator, "poolSize", POOL_SIZE);
+        creator.startPool();
+        awaitPoolDepth(POOL_SIZE);
+
+        Team team = creator.createTeam();
+
+        assertTeam(team);
+        assertEquals(0, creator.getPoolMisses());
+    }
+
+    @Test
+    public void testCreateTeam_poolDisabled() {
+        ReflectionTestUtils.setField(creator, "poolSize", 0);
+        creator.startPool();
+
+        Team team = creator.createTeam();
+
+        assertTeam(team);
+        assertEquals(0, creator.getPoolDepth());
+        assertEquals(1, creator.getPoolMisses());
+    }
+
+    @Test
+    public void testPoolMetrics() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        creator.bindTo(registry);
+        ReflectionTestUtils.setField(creator, "poolSize", POOL_SIZE);
+        creator.startPool();
+        awaitPoolDepth(POOL_SIZE);
+
+        assertEquals(POOL_SIZE, registry.get("soccermanager.creator.team.pool.depth").gauge().value());
+        assertEquals(0, registry.get("soccermanager.creator.team.pool.misses").functionCounter().count());
+    }
+
+    @Test
+    public void testCreateTeam_distinctEntities() throws InterruptedException {
+        ReflectionTestUtils.setField(creator, "poolSize", POOL_SIZE);
+        creator.startPool();
+        awaitPoolDepth(POOL_SIZE);
+
+        Team first = creator.createTeam();
+        Team second = creator.createTeam();
+
+        assertNotSame(first, second);
+        first.getPlayers().forEach(p -> assertSame(first, p.getTeam()));
+        second.getPlayers().forEach(p -> assertSame(second, p.getTeam()));
+    }
+
+    @Test
+    public void testCreateMarketValue() {
+        for (int i = 0; i < 100; i++) {
+            Money value = creator.createMarketValue(Money.of(1000000));
+            assertFalse(value.isLessThan(Money.of(1100000)));
+            assertTrue(value.isLessThan(Money.of(2000000)));
+        }
+    }
+
+    private void assertTeam(Team team) {
+        assertNotNull(team.getName());
+        assertNotNull(team.getCountry());
+        assertEquals(Money.of(5000000), team.getBudget());
+        assertEquals(20, team.getPlayers().size());
+        assertEquals(Money.of(20000000), team.getMarketValue());
+
+        Map<Position, Long> positions = team.getPlayers().stream()
+                .collect(Collectors.groupingBy(Player::getPosition, Collectors.counting()));
+        assertEquals(3, positions.get(Position.Goalkeeper));
+        assertEquals(6, positions.get(Position.Defender));
+        assertEquals(6, positions.get(Position.Midfielder));
+        assertEquals(5, positions.get(Position.Attacker));
+        team.getPlayers().forEach(p -> assertTrue(p.getAge() >= 18 && p.getAge() < 40));
+    }
+
+    private void awaitPoolDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (creator.getPoolDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, creator.getPoolDepth());
+    }
+}
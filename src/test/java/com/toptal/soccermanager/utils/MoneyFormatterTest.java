@@ -0,0 +1,54 @@
+package com.toptal.soccermanager.utils;
+
+import com.toptal.soccermanager.model.entity.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MoneyFormatterTest {
+    private static final long[] EDGE_CENTS = {
+            0, 1, 9, 10, 29, 50, 99, 100, 101, 1250, 10000, 100000000, 500000000, 123456789, 99999999999L,
+            999999999999999L, 100000000000000000L, Long.MAX_VALUE
+    };
+
+    @Test
+    public void testFormat_edgeValues() {
+        for (long cents : EDGE_CENTS) {
+            assertEquals(legacyFormat(cents), MoneyFormatter.format(Money.ofCents(cents)), "cents " + cents);
+            assertEquals(legacyFormat(-cents), MoneyFormatter.format(Money.ofCents(-cents)), "cents " + -cents);
+        }
+    }
+
+    @Test
+    public void testFormat_marketValues() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Values as a player goes through several transfers
+            Money value = Money.of(1000000);
+            for (int t = random.nextInt(10); t > 0; t--) {
+                value = value.plusPercent(10 + random.nextInt(90));
+                assertEquals(legacyFormat(value.getCents()), MoneyFormatter.format(value), "value " + value.getCents());
+            }
+        }
+    }
+
+    @Test
+    public void testFormat_randomValues() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            long cents = random.nextLong() / (1L << random.nextInt(63));
+            assertEquals(legacyFormat(cents), MoneyFormatter.format(Money.ofCents(cents)), "cents " + cents);
+        }
+        assertEquals("0.00", MoneyFormatter.format(Money.ZERO));
+        assertEquals("1000000.00", Money.of(1000000).toString());
+    }
+
+    // What the DTOs were formatted with before, fed the exact amount
+    private String legacyFormat(long cents) {
+        return cents != 0 ? new DecimalFormat("########.00").format(BigDecimal.valueOf(cents, 2)) : "0.00";
+    }
+}
@@ -0,0 +1,16 @@
+package com.toptal.soccermanager.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TokenDigestTest {
+    @Test
+    public void testSha256() {
+        // Refresh token hashes are stored, the encoding must not change
+        assertEquals("ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0", TokenDigest.sha256("abc"));
+        assertEquals(TokenDigest.sha256("token"), TokenDigest.sha256("token"));
+        assertNotEquals(TokenDigest.sha256("token"), TokenDigest.sha256("token2"));
+    }
+}